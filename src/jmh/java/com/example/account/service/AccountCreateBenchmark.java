@@ -0,0 +1,65 @@
+package com.example.account.service;
+
+import com.example.account.AccountApplication;
+import com.example.account.domain.AccountUser;
+import com.example.account.repository.AccountUserRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 동시 계좌 생성 처리량을 계좌번호 source 별로 비교
+ *
+ * ./gradlew jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(8)
+public class AccountCreateBenchmark {
+    private static final int ACCOUNTS_PER_USER = 10;
+
+    @Param({"db", "redis"})
+    public String source;
+
+    private ConfigurableApplicationContext context;
+    private AccountService accountService;
+    private AccountUserRepository accountUserRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(AccountApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("account.number.source=" + source,
+                        "spring.jpa.properties.hibernate.show_sql=false")
+                .run();
+        accountService = context.getBean(AccountService.class);
+        accountUserRepository = context.getBean(AccountUserRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class UserState {
+        AccountUser user;
+        int created = ACCOUNTS_PER_USER;
+    }
+
+    @Benchmark
+    public Object createAccount(UserState state) {
+        if (state.created == ACCOUNTS_PER_USER) {
+            state.user = accountUserRepository.save(AccountUser.builder()
+                    .name("bench")
+                    .build());
+            state.created = 0;
+        }
+        state.created++;
+        return accountService.createAccount(state.user.getId(), 1000L);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.account.service;
+
+import com.example.account.AccountApplication;
+import com.example.account.domain.AccountUser;
+import com.example.account.dto.AccountDto;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountUserRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * account.concurrency.mode 별 useBalance 처리량 비교
+ * redis-lua 는 lock 없이 Lua 스크립트 한 번으로 차감한다.
+ * accounts 가 적을수록 같은 계좌에 요청이 몰려 경합이 심해진다.
+ *
+ * ./gradlew jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(16)
+public class ConcurrencyModeBenchmark {
+    private static final long USE_AMOUNT = 10L;
+    private static final long INITIAL_BALANCE = 1_000_000_000_000L;
+    private static final int ACCOUNTS_PER_USER = 10;
+
+    @Param({"redisson", "optimistic", "redis-lua"})
+    public String mode;
+
+    @Param({"1", "16", "256"})
+    public int accounts;
+
+    private ConfigurableApplicationContext context;
+    private TransactionService transactionService;
+    private LockService lockService;
+    private OptimisticRetryExecutor optimisticRetryExecutor;
+    private final List<AccountDto> accountDtos = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(AccountApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("account.concurrency.mode=" + mode,
+                        "spring.jpa.properties.hibernate.show_sql=false")
+                .run();
+        transactionService = context.getBean(TransactionService.class);
+        lockService = context.getBean(LockService.class);
+        optimisticRetryExecutor = context.getBean(OptimisticRetryExecutor.class);
+
+        AccountUserRepository accountUserRepository =
+                context.getBean(AccountUserRepository.class);
+        AccountService accountService = context.getBean(AccountService.class);
+        AccountUser user = null;
+        for (int i = 0; i < accounts; i++) {
+            if (i % ACCOUNTS_PER_USER == 0) {
+                user = accountUserRepository.save(AccountUser.builder()
+                        .name("bench" + i)
+                        .build());
+            }
+            accountDtos.add(accountService.createAccount(user.getId(), INITIAL_BALANCE));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object useBalance() throws Throwable {
+        AccountDto account = accountDtos.get(
+                ThreadLocalRandom.current().nextInt(accountDtos.size()));
+        try {
+            if ("redis-lua".equals(mode)) {
+                return transactionService.useBalance(
+                        account.getUserId(), account.getAccountNumber(), USE_AMOUNT);
+            }
+            if ("optimistic".equals(mode)) {
+                return optimisticRetryExecutor.execute(() -> transactionService.useBalance(
+                        account.getUserId(), account.getAccountNumber(), USE_AMOUNT));
+            }
+            lockService.lock(account.getAccountNumber());
+            try {
+                return transactionService.useBalance(
+                        account.getUserId(), account.getAccountNumber(), USE_AMOUNT);
+            } finally {
+                lockService.unlock(account.getAccountNumber());
+            }
+        } catch (AccountException e) {
+            return e.getErrorCode();
+        }
+    }
+}
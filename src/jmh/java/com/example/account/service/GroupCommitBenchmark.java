@@ -0,0 +1,91 @@
+package com.example.account.service;
+
+import com.example.account.AccountApplication;
+import com.example.account.domain.AccountUser;
+import com.example.account.dto.AccountDto;
+import com.example.account.dto.UseBalance;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountUserRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 요청마다 커밋(redisson) 과 group-commit 의 useBalance 처리량 비교
+ * 요청 스레드가 많을수록 한 batch 에 묶이는 요청이 많아진다.
+ *
+ * ./gradlew jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(64)
+public class GroupCommitBenchmark {
+    private static final long USE_AMOUNT = 10L;
+    private static final long INITIAL_BALANCE = 1_000_000_000_000L;
+    private static final int ACCOUNTS_PER_USER = 10;
+
+    @Param({"redisson", "group-commit"})
+    public String mode;
+
+    @Param({"1", "16"})
+    public int accounts;
+
+    private ConfigurableApplicationContext context;
+    private TransactionService transactionService;
+    private AccountTaskExecutor accountTaskExecutor;
+    private final List<UseBalance.Request> requests = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(AccountApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("account.concurrency.mode=" + mode,
+                        "spring.jpa.properties.hibernate.show_sql=false")
+                .run();
+        transactionService = context.getBean(TransactionService.class);
+        accountTaskExecutor = context.getBean(AccountTaskExecutor.class);
+
+        AccountUserRepository accountUserRepository =
+                context.getBean(AccountUserRepository.class);
+        AccountService accountService = context.getBean(AccountService.class);
+        AccountUser user = null;
+        for (int i = 0; i < accounts; i++) {
+            if (i % ACCOUNTS_PER_USER == 0) {
+                user = accountUserRepository.save(AccountUser.builder()
+                        .name("bench" + i)
+                        .build());
+            }
+            AccountDto account = accountService.createAccount(user.getId(), INITIAL_BALANCE);
+            requests.add(new UseBalance.Request(
+                    account.getUserId(), account.getAccountNumber(), USE_AMOUNT));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object useBalance() {
+        UseBalance.Request request = requests.get(
+                ThreadLocalRandom.current().nextInt(requests.size()));
+        try {
+            return accountTaskExecutor.submit(request, () -> transactionService.useBalance(
+                    request.getUserId(), request.getAccountNumber(), request.getAmount()))
+                    .join();
+        } catch (AccountException e) {
+            return e.getErrorCode();
+        } catch (CompletionException e) {
+            return e.getCause();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.account.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.redisson.Redisson;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+import redis.embedded.RedisServer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 같은 계좌에 요청 스레드가 몰릴 때
+ * Redisson 단독 lock 과 로컬 + Redisson 2단계 lock 을 비교한다.
+ * Throughput 은 lock ops/sec, SampleTime 은 p99 lock 대기 시간을 본다.
+ *
+ * ./gradlew jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(16)
+public class LockServiceBenchmark {
+    private static final int REDIS_PORT = 16379;
+    private static final String HOT_ACCOUNT_NUMBER = "1000000000";
+
+    private RedisServer redisServer;
+    private RedissonClient redissonClient;
+    private LockStrategy lockStrategy;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        redisServer = new RedisServer(REDIS_PORT);
+        redisServer.start();
+
+        Config config = new Config();
+        config.useSingleServer().setAddress("redis://127.0.0.1:" + REDIS_PORT);
+        redissonClient = Redisson.create(config);
+        lockStrategy = new RedissonLockStrategy(redissonClient,
+                new LockMetrics(new SimpleMeterRegistry(), 256, 16));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        redissonClient.shutdown();
+        redisServer.stop();
+    }
+
+    @Benchmark
+    public void redissonOnly() throws InterruptedException {
+        RLock lock = redissonClient.getLock("ACLK:" + HOT_ACCOUNT_NUMBER);
+        if (lock.tryLock(1, 15, TimeUnit.SECONDS)) {
+            lock.unlock();
+        }
+    }
+
+    @Benchmark
+    public void localThenRedisson() {
+        lockStrategy.lock(HOT_ACCOUNT_NUMBER);
+        lockStrategy.unlock(HOT_ACCOUNT_NUMBER);
+    }
+}
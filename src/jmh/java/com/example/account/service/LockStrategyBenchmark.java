@@ -0,0 +1,82 @@
+package com.example.account.service;
+
+import com.example.account.AccountApplication;
+import com.example.account.domain.AccountUser;
+import com.example.account.dto.AccountDto;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountUserRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 같은 useBalance 부하를 account.lock.strategy 별로 돌려서
+ * 배포 규모에 맞는 가장 싼 lock 방식을 고르기 위한 벤치마크
+ *
+ * ./gradlew jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(16)
+public class LockStrategyBenchmark {
+    private static final long USE_AMOUNT = 10L;
+    private static final long INITIAL_BALANCE = 1_000_000_000_000L;
+
+    @Param({"redisson", "db", "in-process"})
+    public String strategy;
+
+    @Param({"1", "10"})
+    public int accounts;
+
+    private ConfigurableApplicationContext context;
+    private TransactionService transactionService;
+    private LockService lockService;
+    private final List<AccountDto> accountDtos = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(AccountApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("account.lock.strategy=" + strategy,
+                        "spring.jpa.properties.hibernate.show_sql=false")
+                .run();
+        transactionService = context.getBean(TransactionService.class);
+        lockService = context.getBean(LockService.class);
+
+        AccountUser user = context.getBean(AccountUserRepository.class)
+                .save(AccountUser.builder().name("bench").build());
+        AccountService accountService = context.getBean(AccountService.class);
+        for (int i = 0; i < accounts; i++) {
+            accountDtos.add(accountService.createAccount(user.getId(), INITIAL_BALANCE));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object useBalance() {
+        AccountDto account = accountDtos.get(
+                ThreadLocalRandom.current().nextInt(accountDtos.size()));
+        try {
+            lockService.lock(account.getAccountNumber());
+            try {
+                return transactionService.useBalance(
+                        account.getUserId(), account.getAccountNumber(), USE_AMOUNT);
+            } finally {
+                lockService.unlock(account.getAccountNumber());
+            }
+        } catch (AccountException e) {
+            return e.getErrorCode();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.account.service;
+
+import com.example.account.AccountApplication;
+import com.example.account.domain.Account;
+import com.example.account.dto.AccountDto;
+import com.example.account.dto.TransactionHistory;
+import com.example.account.repository.AccountRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 계좌 하나의 거래 수에 따른 거래 내역 페이지 조회 시간
+ * keyset 조회라 첫 페이지든 중간 페이지든 거래 수와 상관없이 비슷해야 한다.
+ * 메모리 H2 라 수천만 건 대신 100 / 1,000,000 건으로 비교한다.
+ *
+ * ./gradlew jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TransactionHistoryBenchmark {
+    private static final int PAGE_SIZE = 20;
+    private static final int INSERT_BATCH = 10_000;
+    private static final long ID_BASE = 1_000_000_000L;
+    private static final LocalDateTime STARTED_AT = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+    @Param({"100", "1000000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private TransactionService transactionService;
+    private String accountNumber;
+    private String middleCursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(AccountApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.jpa.properties.hibernate.show_sql=false")
+                .run();
+        transactionService = context.getBean(TransactionService.class);
+        AccountDto accountDto = context.getBean(AccountService.class).createAccount(1L, 1000L);
+        accountNumber = accountDto.getAccountNumber();
+        Account account = context.getBean(AccountRepository.class)
+                .findByAccountNumber(accountNumber).get();
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH);
+        for (int i = 0; i < rows; i++) {
+            batch.add(new Object[]{ID_BASE + i, account.getId(), 100L, 1000L,
+                    "bench" + i, "S", "USE", Timestamp.valueOf(STARTED_AT.plusSeconds(i))});
+            if (batch.size() == INSERT_BATCH || i == rows - 1) {
+                jdbcTemplate.batchUpdate("insert into transaction (id, account_id, amount," +
+                        " balance_snapshot, transaction_id, transaction_result_type," +
+                        " transaction_type, transacted_at) values (?, ?, ?, ?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+
+        //TransactionService 의 cursor 형식 (transactedAt|id)
+        int middle = rows / 2;
+        middleCursor = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                (STARTED_AT.plusSeconds(middle) + "|" + (ID_BASE + middle))
+                        .getBytes(StandardCharsets.UTF_8));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public TransactionHistory firstPage() {
+        return transactionService.getTransactionHistory(accountNumber, null, null, null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public TransactionHistory middlePage() {
+        return transactionService.getTransactionHistory(accountNumber, null, null, middleCursor, PAGE_SIZE);
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.account.service;
+
+import com.example.account.AccountApplication;
+import com.example.account.dto.AccountDto;
+import com.example.account.dto.FailedTransaction;
+import com.example.account.repository.AccountRepository;
+import com.example.account.type.TransactionType;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 거래 id 생성기 비교
+ * 1. 생성 처리량
+ * 2. 큰 transaction 테이블에서 insert / transactionId 조회 지연
+ *
+ * ./gradlew jmh
+ */
+public class TransactionIdBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Generators {
+        final TransactionIdGenerator uuid = new UuidTransactionIdGenerator();
+        final TransactionIdGenerator snowflake = new SnowflakeTransactionIdGenerator(0);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Threads(4)
+    public String generateUuid(Generators generators) {
+        return generators.uuid.generate();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Threads(4)
+    public String generateSnowflake(Generators generators) {
+        return generators.snowflake.generate();
+    }
+
+    @State(Scope.Benchmark)
+    public static class LargeTable {
+        private static final int BATCH = 10_000;
+
+        @Param({"uuid", "snowflake"})
+        public String generator;
+
+        @Param({"1000000"})
+        public int rows;
+
+        ConfigurableApplicationContext context;
+        TransactionService transactionService;
+        AccountDto account;
+        final List<String> sampleIds = new ArrayList<>();
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            context = new SpringApplicationBuilder(AccountApplication.class)
+                    .web(WebApplicationType.NONE)
+                    .properties("account.transaction-id.generator=" + generator,
+                            "spring.jpa.properties.hibernate.show_sql=false")
+                    .run();
+            transactionService = context.getBean(TransactionService.class);
+            account = context.getBean(AccountService.class).createAccount(1L, 1000L);
+            Long accountId = context.getBean(AccountRepository.class)
+                    .findByAccountNumber(account.getAccountNumber()).get().getId();
+            TransactionIdGenerator idGenerator = context.getBean(TransactionIdGenerator.class);
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+            for (int inserted = 0; inserted < rows; inserted += BATCH) {
+                List<Object[]> batch = new ArrayList<>(BATCH);
+                for (int i = 0; i < BATCH; i++) {
+                    String transactionId = idGenerator.generate();
+                    batch.add(new Object[]{-(long) (inserted + i + 1), accountId, transactionId});
+                    if (i == 0) {
+                        sampleIds.add(transactionId);
+                    }
+                }
+                jdbcTemplate.batchUpdate("insert into transaction" +
+                        " (id, account_id, transaction_id, transaction_type," +
+                        " transaction_result_type, amount, balance_snapshot, transacted_at)" +
+                        " values (?, ?, ?, 'USE', 'S', 100, 1000, now())", batch);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void insert(LargeTable table) {
+        table.transactionService.saveFailedTransactions(Collections.singletonList(
+                new FailedTransaction(TransactionType.USE, table.account.getAccountNumber(),
+                        100L, LocalDateTime.now())));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Object lookup(LargeTable table) {
+        return table.transactionService.queryTransaction(table.sampleIds.get(
+                ThreadLocalRandom.current().nextInt(table.sampleIds.size())));
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.account.service;
+
+import com.example.account.AccountApplication;
+import com.example.account.dto.AccountDto;
+import com.example.account.dto.FailedTransaction;
+import com.example.account.type.TransactionType;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transaction insert 처리량을 id allocation size 별로 비교
+ * allocationSize=1 은 insert 마다 sequence 를 부르던 이전 방식과 같다.
+ *
+ * ./gradlew jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(8)
+public class TransactionInsertBenchmark {
+    @Param({"1", "50"})
+    public int allocationSize;
+
+    private ConfigurableApplicationContext context;
+    private TransactionService transactionService;
+    private AccountDto account;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(AccountApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.jpa.properties.account.id.allocation_size=" + allocationSize,
+                        "spring.jpa.properties.hibernate.show_sql=false")
+                .run();
+        transactionService = context.getBean(TransactionService.class);
+        account = context.getBean(AccountService.class).createAccount(1L, 1000L);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void saveTransaction() {
+        transactionService.saveFailedTransactions(Collections.singletonList(
+                new FailedTransaction(TransactionType.USE, account.getAccountNumber(),
+                        100L, LocalDateTime.now())));
+    }
+}
@@ -1,5 +1,15 @@
 package com.example.account.aop;
 
+import java.util.Collections;
+import java.util.List;
+
 public interface AccountLockIdInterface {
     String getAccountNumber();
+
+    /**
+     * 함께 잠가야 하는 계좌 (이체처럼 여러 계좌를 건드릴 때 재정의)
+     */
+    default List<String> getLockAccountNumbers() {
+        return Collections.singletonList(getAccountNumber());
+    }
 }
@@ -0,0 +1,16 @@
+package com.example.account.aop;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.annotation.*;
+
+/**
+ * 읽기 전용 트랜잭션, replica 가 켜져 있으면 replica 에서 읽는다.
+ * javax.transaction.Transactional 로는 read-only 를 표시할 수 없어 따로 둔다.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Transactional(readOnly = true)
+public @interface ReadOnlyTransactional {
+}
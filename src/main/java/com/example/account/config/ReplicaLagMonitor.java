@@ -0,0 +1,90 @@
+package com.example.account.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * primary 에 check-millis 마다 heartbeat 시각을 쓰고 replica 에서 읽어 지연을 잰다.
+ * 지연이 max-lag-millis 를 넘거나 replica 를 읽지 못하면 다음 확인까지 읽기도 primary 로 보낸다.
+ * heartbeat 간격만큼 지연이 커 보일 수 있으므로 max-lag-millis 는 check-millis 이상으로 둔다.
+ */
+@Slf4j
+public class ReplicaLagMonitor implements InitializingBean, DisposableBean {
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final long maxLagMillis;
+    private final long checkMillis;
+    private final ScheduledExecutorService checker;
+
+    private volatile boolean replicaUsable;
+
+    public ReplicaLagMonitor(DataSource primary, DataSource replica, long maxLagMillis, long checkMillis) {
+        this.primary = new JdbcTemplate(primary);
+        this.replica = new JdbcTemplate(replica);
+        this.maxLagMillis = maxLagMillis;
+        this.checkMillis = checkMillis;
+        this.checker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        primary.execute("create table if not exists replication_heartbeat" +
+                " (id int primary key, beat_at bigint not null)");
+        primary.update("insert into replication_heartbeat (id, beat_at)" +
+                " select 1, 0 where not exists (select 1 from replication_heartbeat where id = 1)");
+        check();
+        checker.scheduleWithFixedDelay(this::check, checkMillis, checkMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isReplicaUsable() {
+        return replicaUsable;
+    }
+
+    /**
+     * replica 연결 실패, 다음 확인까지 primary 로 읽는다.
+     */
+    public void replicaFailed() {
+        setReplicaUsable(false, "connection failed");
+    }
+
+    void check() {
+        try {
+            primary.update("update replication_heartbeat set beat_at = ? where id = 1",
+                    System.currentTimeMillis());
+        } catch (RuntimeException e) {
+            log.warn("Failed to write replication heartbeat", e);
+        }
+        try {
+            Long beatAt = replica.queryForObject(
+                    "select beat_at from replication_heartbeat where id = 1", Long.class);
+            long lag = System.currentTimeMillis() - (beatAt == null ? 0 : beatAt);
+            setReplicaUsable(lag <= maxLagMillis, "lag " + lag + "ms");
+        } catch (RuntimeException e) {
+            setReplicaUsable(false, e.getMessage());
+        }
+    }
+
+    private void setReplicaUsable(boolean usable, String reason) {
+        if (replicaUsable != usable) {
+            log.info("Replica reads {} ({})", usable ? "enabled" : "disabled", reason);
+        }
+        replicaUsable = usable;
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        checker.shutdown();
+        checker.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.account.controller;
+
+import com.example.account.dto.LockHotKey;
+import com.example.account.service.LockMetrics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * GET /actuator/lockhotkeys?top=10
+ * lock 요청이 가장 많은 ACLK: key 목록
+ */
+@Component
+@Endpoint(id = "lockhotkeys")
+@RequiredArgsConstructor
+public class LockHotKeysEndpoint {
+    private static final int DEFAULT_TOP = 10;
+
+    private final LockMetrics lockMetrics;
+
+    @ReadOperation
+    public List<LockHotKey> hotKeys(@Nullable Integer top) {
+        return lockMetrics.getHotKeys(top == null ? DEFAULT_TOP : top);
+    }
+}
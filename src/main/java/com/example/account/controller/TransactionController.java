@@ -1,76 +1,182 @@
 package com.example.account.controller;
 
-import com.example.account.aop.AccountLock;
 import com.example.account.dto.CancelBalance;
 import com.example.account.dto.QueryTransactionResponse;
+import com.example.account.dto.TransactionHistory;
+import com.example.account.dto.Transfer;
+import com.example.account.dto.TransferDto;
 import com.example.account.dto.UseBalance;
 import com.example.account.exception.AccountException;
+import com.example.account.service.AccountTaskExecutor;
+import com.example.account.service.FailedTransactionRecorder;
+import com.example.account.service.IdempotencyCache;
+import com.example.account.service.LatencySimulator;
+import com.example.account.service.TransactionExportService;
 import com.example.account.service.TransactionService;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.TRANSFER_OUT;
+import static com.example.account.type.TransactionType.USE;
 
 /**
  * 잔액 관련 컨트롤러
  * 1. 잔액 사용
  * 2. 잔액 사용 취소
  * 3. 거래 확인
+ * 4. 계좌 간 이체 (단건, batch)
+ * 5. 계좌별 거래 내역
+ * 6. 기간별 거래 export (NDJSON)
+ * 사용, 취소는 Idempotency-Key 헤더가 있으면 첫 결과를 재시도에 그대로 돌려준다.
  */
 @Slf4j
 @RestController
 @RequiredArgsConstructor
 public class TransactionController {
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final TransactionService transactionService;
+    private final AccountTaskExecutor accountTaskExecutor;
+    private final LatencySimulator latencySimulator;
+    private final FailedTransactionRecorder failedTransactionRecorder;
+    private final IdempotencyCache idempotencyCache;
+    private final TransactionExportService transactionExportService;
+
+    @Value("${account.export.timeout-millis:600000}")
+    private long exportTimeoutMillis;
 
     @PostMapping("/transaction/use")
-    @AccountLock
-    public UseBalance.Response useBalance(
+    public CompletableFuture<UseBalance.Response> useBalance(
+            @RequestHeader(value = IdempotencyCache.HEADER, required = false) String idempotencyKey,
             @Valid @RequestBody UseBalance.Request request
 
-    ) throws InterruptedException {
-
-        try {
-            Thread.sleep(3000L);
-            return UseBalance.Response.from(
-                    transactionService.useBalance(request.getUserId(),
-                            request.getAccountNumber(), request.getAmount())
-            );
-        } catch (AccountException e){
-            log.error("Failed to use balance");
+    ) {
+        return idempotencyCache.execute("use:" + request.getAccountNumber(), idempotencyKey, request,
+                UseBalance.Response.class, () -> latencySimulator.delay().thenCompose(ignored ->
+                accountTaskExecutor.submit(request, () -> {
+                    try {
+                        return UseBalance.Response.from(
+                                transactionService.useBalance(request.getUserId(),
+                                        request.getAccountNumber(), request.getAmount())
+                        );
+                    } catch (AccountException e){
+                        log.error("Failed to use balance");
 
-            transactionService.saveFailedUseTransaction(
-                    request.getAccountNumber(),
-                    request.getAmount()
-            );
-            throw e;
-        }
+                        failedTransactionRecorder.record(USE,
+                                request.getAccountNumber(),
+                                request.getAmount()
+                        );
+                        throw e;
+                    }
+                })));
     }
 
     @PostMapping("/transaction/cancel")
-    @AccountLock
-    public CancelBalance.Response cancelBalance(
+    public CompletableFuture<CancelBalance.Response> cancelBalance(
+            @RequestHeader(value = IdempotencyCache.HEADER, required = false) String idempotencyKey,
             @Valid @RequestBody CancelBalance.Request request
 
     ){
+        return idempotencyCache.execute("cancel:" + request.getAccountNumber(), idempotencyKey, request,
+                CancelBalance.Response.class, () -> accountTaskExecutor.submit(request, () -> {
+            try {
+                return CancelBalance.Response.from(
+                        transactionService.cancelBalance(request.getTransactionId(),
+                                request.getAccountNumber(), request.getAmount())
+                );
+            } catch (AccountException e){
+                log.error("Failed to use balance");
 
+                failedTransactionRecorder.record(CANCEL,
+                        request.getAccountNumber(),
+                        request.getAmount()
+                );
+                throw e;
+            }
+        }));
+    }
+
+    @PostMapping("/transaction/transfer")
+    public CompletableFuture<Transfer.Response> transfer(
+            @RequestHeader(value = IdempotencyCache.HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody Transfer.Request request
+    ){
+        return idempotencyCache.execute("transfer:" + request.getFromAccountNumber(), idempotencyKey, request,
+                Transfer.Response.class, () -> accountTaskExecutor.submit(request, () ->
+                        Transfer.Response.from(
+                                transfer(Collections.singletonList(request)).get(0))));
+    }
+
+    @PostMapping("/transaction/transfer/batch")
+    public CompletableFuture<Transfer.BatchResponse> transferBatch(
+            @RequestHeader(value = IdempotencyCache.HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody Transfer.BatchRequest request
+    ){
+        return idempotencyCache.execute("transfer-batch:" + request.getAccountNumber(), idempotencyKey, request,
+                Transfer.BatchResponse.class, () -> accountTaskExecutor.submit(request, () ->
+                        Transfer.BatchResponse.from(transfer(request.getTransfers()))));
+    }
+
+    private List<TransferDto> transfer(List<Transfer.Request> transfers){
         try {
-            return CancelBalance.Response.from(
-                    transactionService.cancelBalance(request.getTransactionId(),
-                            request.getAccountNumber(), request.getAmount())
-            );
+            return transactionService.transfer(transfers);
         } catch (AccountException e){
-            log.error("Failed to use balance");
+            log.error("Failed to transfer");
 
-            transactionService.saveFailedCancelTransaction(
-                    request.getAccountNumber(),
-                    request.getAmount()
-            );
+            transfers.forEach(transfer -> failedTransactionRecorder.record(TRANSFER_OUT,
+                    transfer.getFromAccountNumber(),
+                    transfer.getAmount()
+            ));
             throw e;
         }
     }
 
+    @GetMapping("/account/{accountNumber}/transactions")
+    public TransactionHistory getTransactionHistory(
+            @PathVariable String accountNumber,
+            @RequestParam(value = "type", required = false) TransactionType type,
+            @RequestParam(value = "result", required = false) TransactionResultType result,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size){
+        return transactionService.getTransactionHistory(accountNumber, type, result, cursor, size);
+    }
+
+    /**
+     * 다른 API 의 async timeout 과 따로 account.export.timeout-millis 동안 쓴다.
+     */
+    @GetMapping("/transaction/export")
+    public WebAsyncTask<Void> exportTransactions(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(value = "account_number", required = false) String accountNumber,
+            HttpServletResponse response){
+        if(!from.isBefore(to)){
+            throw new AccountException(ErrorCode.INVALID_REQUEST);
+        }
+        return new WebAsyncTask<>(exportTimeoutMillis, () -> {
+            response.setContentType(NDJSON.toString());
+            transactionExportService.export(from, to, accountNumber, response.getOutputStream());
+            response.flushBuffer();
+            return null;
+        });
+    }
+
     @GetMapping("/transaction/{transactionId}")
     public QueryTransactionResponse queryTransaction(
             @PathVariable String transactionId){
@@ -21,8 +21,9 @@ import java.time.LocalDateTime;
 public class Account extends BaseEntity{
 
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY) //대부분 소유주 id 만 쓰므로 사용자 테이블은 필요할 때만 조회
     private AccountUser accountUser;
+    @Column(unique = true)
     private String accountNumber;
 
     @Enumerated(EnumType.STRING) //enum타입은 봤을때 뭔지 모르므로 이와같은 지정자를 해두는게 좋다
@@ -32,6 +33,11 @@ public class Account extends BaseEntity{
     private LocalDateTime registerdAt;
     private LocalDateTime UnRegisterdAt;
 
+    @Version //optimistic 모드에서 동시 수정 충돌을 감지
+    private Long version;
+
+    private Long balanceSequence; //redis-lua 모드에서 balance 에 마지막으로 반영한 거래의 계좌별 순번
+
 
     public void useBalance(Long amount){
         if(amount>balance){
@@ -16,6 +16,12 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @Builder
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_transaction_account_transacted_at",
+                columnList = "account_id, transactedAt, id"), //계좌별 거래 내역 keyset 페이지 조회
+        @Index(name = "idx_transaction_transacted_at",
+                columnList = "transactedAt") //기간별 export
+})
 public class Transaction extends BaseEntity{
 
 
@@ -24,11 +30,12 @@ public class Transaction extends BaseEntity{
     @Enumerated(EnumType.STRING)
     private TransactionResultType transactionResultType;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Account account;
     private Long amount;
     private Long balanceSnapshot;
 
+    @Column(unique = true)
     private String transactionId;
     private LocalDateTime transactedAt;
 
@@ -0,0 +1,14 @@
+package com.example.account.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class LockHotKey {
+    private String key;
+    private long count;
+    private long error; //space-saving 추정 오차, count - error 이상은 보장
+}
@@ -0,0 +1,37 @@
+package com.example.account.dto;
+
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 계좌별 거래 내역 한 페이지
+ * nextCursor 를 다음 요청의 cursor 로 넘기면 이어서 조회하고, 마지막 페이지면 null
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionHistory {
+    private List<Item> transactions;
+    private String nextCursor;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        @JsonIgnore
+        private Long id;
+        private String transactionId;
+        private TransactionType transactionType;
+        private TransactionResultType transactionResult;
+        private Long amount;
+        private Long balanceSnapshot;
+        private LocalDateTime transactedAt;
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.account.dto;
+
+import com.example.account.aop.AccountLockIdInterface;
+import com.example.account.type.TransactionResultType;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.*;
+
+import javax.validation.Valid;
+import javax.validation.constraints.*;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class Transfer {
+    /**
+     * {
+     *     "userId":
+     *     "fromAccountNumber":
+     *     "toAccountNumber":
+     *     "amount":
+     * }
+     *
+     */
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Request implements AccountLockIdInterface {
+        @NotNull
+        @Min(1)
+        private Long userId;
+
+        @NotBlank
+        @Size(min=10, max=10)
+        private String fromAccountNumber;
+
+        @NotBlank
+        @Size(min=10, max=10)
+        private String toAccountNumber;
+
+        @NotNull
+        @Min(10)
+        @Max(1000_000_000)
+        private Long amount;
+
+        @Override
+        @JsonIgnore
+        public String getAccountNumber() {
+            return fromAccountNumber;
+        }
+
+        @Override
+        @JsonIgnore
+        public List<String> getLockAccountNumbers() {
+            return Arrays.asList(fromAccountNumber, toAccountNumber);
+        }
+    }
+
+    /**
+     * {
+     *     "transfers": [ {이체 요청}, ... ]
+     * }
+     * 모두 한 트랜잭션에서 처리하고 하나라도 실패하면 전체가 반영되지 않는다.
+     */
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BatchRequest implements AccountLockIdInterface {
+        @NotEmpty
+        @Size(max=100)
+        private List<@Valid @NotNull Request> transfers;
+
+        @Override
+        @JsonIgnore
+        public String getAccountNumber() {
+            return getLockAccountNumbers().get(0);
+        }
+
+        @Override
+        @JsonIgnore
+        public List<String> getLockAccountNumbers() {
+            return transfers.stream()
+                    .flatMap(transfer -> transfer.getLockAccountNumbers().stream())
+                    .distinct()
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Response{
+        private String fromAccountNumber;
+        private String toAccountNumber;
+        private TransactionResultType transactionResult;
+        private String withdrawTransactionId;
+        private String depositTransactionId;
+        private Long amount;
+        private LocalDateTime transactedAt;
+
+        public static Response from(TransferDto transferDto){
+            return Response.builder()
+                    .fromAccountNumber(transferDto.getWithdraw().getAccountNumber())
+                    .toAccountNumber(transferDto.getDeposit().getAccountNumber())
+                    .transactionResult(transferDto.getWithdraw().getTransactionResultType())
+                    .withdrawTransactionId(transferDto.getWithdraw().getTransactionId())
+                    .depositTransactionId(transferDto.getDeposit().getTransactionId())
+                    .amount(transferDto.getWithdraw().getAmount())
+                    .transactedAt(transferDto.getWithdraw().getTransactedAt())
+                    .build();
+        }
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BatchResponse{
+        private List<Response> transfers;
+
+        public static BatchResponse from(List<TransferDto> transferDtos){
+            return new BatchResponse(transferDtos.stream()
+                    .map(Response::from)
+                    .collect(Collectors.toList()));
+        }
+    }
+}
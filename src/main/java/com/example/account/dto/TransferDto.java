@@ -0,0 +1,13 @@
+package com.example.account.dto;
+
+import lombok.*;
+
+/**
+ * 이체 한 건의 출금, 입금 거래
+ */
+@Getter
+@AllArgsConstructor
+public class TransferDto {
+    private TransactionDto withdraw;
+    private TransactionDto deposit;
+}
@@ -4,10 +4,12 @@ import com.example.account.dto.ErrorResponse;
 import com.example.account.type.ErrorCode;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import static com.example.account.type.ErrorCode.ACCOUNT_TRANSACTION_LOCK;
 import static com.example.account.type.ErrorCode.INTERNAL_SERVER_ERROR;
 import static com.example.account.type.ErrorCode.INVALID_REQUEST;
 
@@ -37,6 +39,14 @@ public class GlobalExceptionHandler {
         return new ErrorResponse(INVALID_REQUEST, INVALID_REQUEST.getDescription());
     }
 
+    //lane 모드의 이체처럼 다른 계좌의 순서 밖에서 같은 계좌를 고친 경우, 다시 시도하면 되는 충돌
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ErrorResponse handleOptimisticLockingFailureException(OptimisticLockingFailureException e){
+        log.error("OptimisticLockingFailureException is occurred",e);
+
+        return new ErrorResponse(ACCOUNT_TRANSACTION_LOCK, ACCOUNT_TRANSACTION_LOCK.getDescription());
+    }
+
     @ExceptionHandler(Exception.class)
     public ErrorResponse handleException(Exception e){
         log.error("Exception is occurred.",e);
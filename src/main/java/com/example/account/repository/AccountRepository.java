@@ -2,21 +2,96 @@ package com.example.account.repository;
 
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
+import com.example.account.dto.AccountDto;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface AccountRepository extends JpaRepository<Account,Long> {
-    Optional<Account> findFirstByOrderByIdDesc();
-
     Integer countByAccountUser(AccountUser accountUser);
 
     Optional<Account> findByAccountNumber(String AccountNumber);
 
     List<Account> findByAccountUser(AccountUser accountUser);
 
+    List<Account> findByAccountNumberIn(List<String> accountNumbers);
+
+    /**
+     * 계좌를 그대로 응답할 때 쓴다. 소유주를 함께 읽어 트랜잭션 밖에서 직렬화해도 프록시가 남지 않음
+     */
+    @Query("select a from Account a join fetch a.accountUser where a.id = :id")
+    Optional<Account> findWithAccountUserById(@Param("id") Long id);
+
+    /**
+     * 계좌 목록 조회용, AccountDto 에 쓰는 컬럼만 읽고 사용자 테이블은 join 하지 않는다.
+     */
+    @Query("select new com.example.account.dto.AccountDto(" +
+            "a.accountUser.id, a.accountNumber, a.balance, a.registerdAt, a.UnRegisterdAt)" +
+            " from Account a where a.accountNumber in :accountNumbers")
+    List<AccountDto> findDtosByAccountNumberIn(@Param("accountNumbers") List<String> accountNumbers);
+
+    /**
+     * 엔티티를 거치지 않고 커밋된 잔액만 읽는다. (영속성 컨텍스트에 있는 이전 값을 쓰지 않음)
+     */
+    @Query("select a.balance from Account a where a.accountNumber = :accountNumber")
+    Optional<Long> findBalanceByAccountNumber(@Param("accountNumber") String accountNumber);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "1000"))
+    @Query("select a from Account a where a.accountNumber = :accountNumber")
+    Optional<Account> findByAccountNumberForUpdate(@Param("accountNumber") String accountNumber);
+
+    /**
+     * 소유주, 상태, 잔액 조건을 모두 만족할 때만 한 문장으로 차감
+     * 반환값이 0 이면 조건 중 하나가 맞지 않은 것
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update Account a" +
+            " set a.balance = a.balance - :amount, a.version = a.version + 1" +
+            " where a.accountNumber = :accountNumber" +
+            " and a.accountUser.id = :userId" +
+            " and a.balance >= :amount" +
+            " and a.accountStatus = com.example.account.type.AccountStatus.IN_USE")
+    int debitBalance(@Param("userId") Long userId,
+                     @Param("accountNumber") String accountNumber,
+                     @Param("amount") Long amount);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update Account a" +
+            " set a.balance = a.balance + :amount, a.version = a.version + 1" +
+            " where a.accountNumber = :accountNumber")
+    int creditBalance(@Param("accountNumber") String accountNumber,
+                      @Param("amount") Long amount);
+
+    /**
+     * redis-lua 모드 반영용, 이미 반영된 거래보다 순번이 클 때만 잔액을 덮어쓴다.
+     * 반환값이 0 이면 더 최근 거래의 잔액이 이미 들어가 있는 것
+     */
+    @Modifying
+    @Query("update Account a" +
+            " set a.balance = :balance, a.balanceSequence = :balanceSequence, a.version = a.version + 1" +
+            " where a.accountNumber = :accountNumber" +
+            " and (a.balanceSequence is null or a.balanceSequence < :balanceSequence)")
+    int advanceBalance(@Param("accountNumber") String accountNumber,
+                       @Param("balance") Long balance,
+                       @Param("balanceSequence") Long balanceSequence);
+
+    /**
+     * KnownIdFilter 를 채울 때 쓰는 전체 계좌번호, 트랜잭션 안에서 쓰고 stream 을 닫아야 한다.
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    @Query("select a.accountNumber from Account a")
+    Stream<String> streamAllAccountNumbers();
 
 }
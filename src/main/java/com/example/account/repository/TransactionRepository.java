@@ -3,16 +3,98 @@ package com.example.account.repository;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
 import com.example.account.domain.Transaction;
+import com.example.account.dto.TransactionDto;
+import com.example.account.dto.TransactionHistory;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction,Long> {
+    //계좌별 거래 내역 공통 조건, type / result 가 null 이면 조건에서 빠진다.
+    String HISTORY_SELECT = "select new com.example.account.dto.TransactionHistory$Item(" +
+            "t.id, t.transactionId, t.transactionType, t.transactionResultType," +
+            " t.amount, t.balanceSnapshot, t.transactedAt)" +
+            " from Transaction t" +
+            " where t.account.id = :accountId" +
+            " and (:type is null or t.transactionType = :type)" +
+            " and (:result is null or t.transactionResultType = :result)";
+
     Optional<Transaction> findByTransactionId(String transactionId);
 
+    List<Transaction> findByTransactionIdIn(List<String> transactionIds);
+
+    /**
+     * 거래 조회용, 계좌는 계좌번호만 join 으로 읽는다.
+     */
+    @Query("select new com.example.account.dto.TransactionDto(" +
+            "a.accountNumber, t.transactionType, t.transactionResultType," +
+            " t.amount, t.balanceSnapshot, t.transactionId, t.transactedAt)" +
+            " from Transaction t join t.account a where t.transactionId = :transactionId")
+    Optional<TransactionDto> findDtoByTransactionId(@Param("transactionId") String transactionId);
+
+    /**
+     * 계좌별 거래 내역 첫 페이지 (최신순)
+     * (account_id, transacted_at, id) 인덱스를 역순으로 읽어 pageable 크기만큼만 가져온다.
+     */
+    @Query(HISTORY_SELECT +
+            " order by t.transactedAt desc, t.id desc")
+    List<TransactionHistory.Item> findHistory(
+            @Param("accountId") Long accountId,
+            @Param("type") TransactionType type,
+            @Param("result") TransactionResultType result,
+            Pageable pageable);
+
+    /**
+     * (transactedAt, id) 가 cursor 보다 앞선 거래부터 이어서 조회
+     * offset 없이 인덱스에서 바로 찾아가므로 몇 번째 페이지든 비용이 같다.
+     */
+    @Query(HISTORY_SELECT +
+            " and (t.transactedAt < :transactedAt" +
+            " or (t.transactedAt = :transactedAt and t.id < :id))" +
+            " order by t.transactedAt desc, t.id desc")
+    List<TransactionHistory.Item> findHistoryAfter(
+            @Param("accountId") Long accountId,
+            @Param("type") TransactionType type,
+            @Param("result") TransactionResultType result,
+            @Param("transactedAt") LocalDateTime transactedAt,
+            @Param("id") Long id,
+            Pageable pageable);
 
+    /**
+     * export 용 forward-only 조회, fetch size 만큼씩 읽어 온다.
+     * 호출하는 쪽에서 트랜잭션 안에서 쓰고 stream 을 닫아야 한다.
+     */
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = "1000"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("select new com.example.account.dto.TransactionDto(" +
+            "a.accountNumber, t.transactionType, t.transactionResultType," +
+            " t.amount, t.balanceSnapshot, t.transactionId, t.transactedAt)" +
+            " from Transaction t join t.account a" +
+            " where t.transactedAt >= :from and t.transactedAt < :to" +
+            " and (:accountNumber is null or a.accountNumber = :accountNumber)" +
+            " order by t.transactedAt, t.id")
+    Stream<TransactionDto> streamForExport(@Param("from") LocalDateTime from,
+                                           @Param("to") LocalDateTime to,
+                                           @Param("accountNumber") String accountNumber);
 
+    /**
+     * KnownIdFilter 를 채울 때 쓰는 전체 거래 ID, 트랜잭션 안에서 쓰고 stream 을 닫아야 한다.
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    @Query("select t.transactionId from Transaction t")
+    Stream<String> streamAllTransactionIds();
 }
@@ -0,0 +1,147 @@
+package com.example.account.service;
+
+import com.example.account.aop.AccountLockIdInterface;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * account.concurrency.mode=lane
+ * 계좌번호로 lane 을 골라 mailbox 에 넣고, lane 하나는 한 번에 worker 하나만 비운다.
+ * 같은 계좌는 lock 없이 순서대로, 다른 계좌는 worker 수만큼 병렬로 처리된다.
+ * lane 은 JVM 안에서만 직렬화하므로 서버 한 대이거나 계좌별 sticky 라우팅일 때만 쓴다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "account.concurrency.mode", havingValue = "lane")
+public class AccountLaneExecutor implements AccountTaskExecutor, DisposableBean {
+    private static final int DRAIN_BATCH = 64;
+
+    private final Lane[] lanes;
+    private final ExecutorService workers;
+    private final int maxQueueDepth;
+
+    public AccountLaneExecutor(
+            @Value("${account.lane.count:4096}") int laneCount,
+            @Value("${account.lane.workers:0}") int workerCount,
+            @Value("${account.lane.max-queue-depth:256}") int maxQueueDepth) {
+        if (Integer.bitCount(laneCount) != 1) {
+            throw new IllegalArgumentException("account.lane.count must be a power of two");
+        }
+        this.lanes = new Lane[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = new Lane();
+        }
+        this.workers = Executors.newFixedThreadPool(workerCount > 0
+                ? workerCount : Runtime.getRuntime().availableProcessors());
+        this.maxQueueDepth = maxQueueDepth;
+    }
+
+    @Override
+    public <T> CompletableFuture<T> submit(AccountLockIdInterface request, Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        boolean accepted = getLane(request.getAccountNumber()).offer(new LaneTask(() -> {
+            try {
+                future.complete(task.get());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        }, future));
+        if (!accepted) {
+            log.error("======= Lane saturated for accountNumber : {} =======",
+                    request.getAccountNumber());
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        }
+        return future;
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        workers.shutdown();
+        if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+        }
+    }
+
+    private Lane getLane(String accountNumber) {
+        int hash = accountNumber.hashCode();
+        return lanes[(hash ^ (hash >>> 16)) & (lanes.length - 1)];
+    }
+
+    private final class Lane implements Runnable {
+        private final Queue<LaneTask> mailbox = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger depth = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        boolean offer(LaneTask task) {
+            if (depth.incrementAndGet() > maxQueueDepth) {
+                depth.decrementAndGet();
+                return false;
+            }
+            mailbox.offer(task);
+            schedule();
+            return true;
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    workers.execute(this);
+                } catch (RejectedExecutionException e) {
+                    //worker 에 넘기지 못하면 flag 를 되돌리고 쌓인 요청을 실패시켜 lane 이 멈추지 않게 함
+                    scheduled.set(false);
+                    failQueued(e);
+                }
+            }
+        }
+
+        private void failQueued(RejectedExecutionException cause) {
+            log.error("Lane worker rejected, failing queued tasks", cause);
+            LaneTask task;
+            while ((task = mailbox.poll()) != null) {
+                depth.decrementAndGet();
+                task.future.completeExceptionally(
+                        new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK));
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (int i = 0; i < DRAIN_BATCH; i++) {
+                    LaneTask task = mailbox.poll();
+                    if (task == null) {
+                        break;
+                    }
+                    depth.decrementAndGet();
+                    task.action.run();
+                }
+            } finally {
+                scheduled.set(false);
+                if (!mailbox.isEmpty()) {
+                    schedule(); //다른 lane 도 worker 를 얻도록 batch 단위로 양보
+                }
+            }
+        }
+    }
+
+    private static final class LaneTask {
+        private final Runnable action;
+        private final CompletableFuture<?> future;
+
+        private LaneTask(Runnable action, CompletableFuture<?> future) {
+            this.action = action;
+            this.future = future;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 계좌번호 발급기
+ * source 에서 blockSize 개씩 예약해 두고 메모리에서 하나씩 나눠준다.
+ * 블록 하나를 다 쓸 때까지 추가 조회가 없고 서버끼리 번호가 겹치지 않는다.
+ */
+@Slf4j
+@Component
+public class AccountNumberAllocator {
+    private static final long FIRST_ACCOUNT_NUMBER = 1_000_000_000L;
+    private static final long LAST_ACCOUNT_NUMBER = 9_999_999_999L;
+
+    private final AccountNumberBlockSource blockSource;
+    private final int blockSize;
+
+    private long next;
+    private long end;
+
+    public AccountNumberAllocator(AccountNumberBlockSource blockSource,
+                                  @Value("${account.number.block-size:100}") int blockSize) {
+        this.blockSource = blockSource;
+        this.blockSize = blockSize;
+    }
+
+    public synchronized String next() {
+        if (next >= end) {
+            next = FIRST_ACCOUNT_NUMBER + blockSource.reserve(blockSize);
+            end = next + blockSize;
+            log.debug("Reserved account number block [{}, {})", next, end);
+        }
+        if (next > LAST_ACCOUNT_NUMBER) {
+            throw new AccountException(ErrorCode.ACCOUNT_NUMBER_EXHAUSTED);
+        }
+        return String.valueOf(next++);
+    }
+}
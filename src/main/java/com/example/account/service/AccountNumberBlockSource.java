@@ -0,0 +1,12 @@
+package com.example.account.service;
+
+/**
+ * 계좌번호 블록 예약소
+ * 여러 서버가 같은 source 를 쓰면 서로 겹치지 않는 블록을 받는다.
+ */
+public interface AccountNumberBlockSource {
+    /**
+     * blockSize 개의 번호를 예약하고 블록 시작 offset (0 부터) 을 돌려준다.
+     */
+    long reserve(int blockSize);
+}
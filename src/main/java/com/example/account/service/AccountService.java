@@ -1,5 +1,6 @@
 package com.example.account.service;
 
+import com.example.account.aop.ReadOnlyTransactional;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
 import com.example.account.dto.AccountDto;
@@ -9,7 +10,10 @@ import com.example.account.repository.AccountUserRepository;
 import com.example.account.type.AccountStatus;
 import com.example.account.type.ErrorCode;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.transaction.Transactional;
 import java.time.LocalDateTime;
@@ -23,8 +27,25 @@ import static com.example.account.type.ErrorCode.*;
 @Service
 @RequiredArgsConstructor
 public class AccountService {
+    private static final int MAX_ACCOUNT_PER_USER = 10;
+
     private final AccountRepository accountRepository;
     private final AccountUserRepository accountUserRepository;
+    private final AccountUserCache accountUserCache;
+    private final AccountNumberAllocator accountNumberAllocator;
+    private final UserAccountDirectory userAccountDirectory;
+
+    @Autowired(required = false) //account.balance-engine.enabled=true 일 때만 있음
+    private BalanceEngine balanceEngine;
+
+    @Autowired(required = false) //account.concurrency.mode=redis-lua 일 때만 있음
+    private RedisBalanceStore redisBalanceStore;
+
+    @Autowired(required = false) //account.journal.enabled=true 일 때만 있음
+    private TransactionJournal transactionJournal;
+
+    @Autowired(required = false) //account.known-id-filter.enabled=true 일 때만 있음
+    private KnownIdFilter knownIdFilter;
 
     /**
      * //사용자가 있는지 조회
@@ -33,50 +54,72 @@ public class AccountService {
      */
     @Transactional
     public AccountDto createAccount(Long userId, Long initialBalance) {
-        AccountUser accountUser = getAccountUser(userId);
-        validateCreateAccount(accountUser);
-
+        AccountUser accountUser;
+        UserAccountDirectory.Entry directory = userAccountDirectory.get(userId);
+        if (directory != null) { //캐시에 있으면 사용자, 계좌 수 조회 생략
+            if (directory.size() >= MAX_ACCOUNT_PER_USER) {
+                throw new AccountException(ErrorCode.MAX_ACCOUNT_PER_USER_10);
+            }
+            accountUser = accountUserRepository.getReferenceById(userId);
+        } else {
+            accountUser = getAccountUser(userId);
+            validateCreateAccount(accountUser);
+        }
 
-        String newAccountNumber = accountRepository.findFirstByOrderByIdDesc()
-                .map(account -> (Integer.parseInt(account.getAccountNumber())) + 1 + "")
-                .orElse("1000000000");
 
+        String newAccountNumber = accountNumberAllocator.next();
+        if (knownIdFilter != null) {
+            knownIdFilter.addAccountNumber(newAccountNumber);
+        }
 
+        Account account = accountRepository.save(
+                Account.builder()
+                        .accountUser(accountUser)
+                        .accountStatus(IN_USE)
+                        .accountNumber(newAccountNumber)
+                        .balance(initialBalance)
+                        .registerdAt(LocalDateTime.now())
+                        .build());
+        userAccountDirectory.addAccount(userId, newAccountNumber, IN_USE);
+        if (balanceEngine != null) {
+            afterCommit(() -> balanceEngine.register(account));
+        }
 
-         return AccountDto.fromEntity(accountRepository.save(
-                 Account.builder()
-                         .accountUser(accountUser)
-                         .accountStatus(IN_USE)
-                         .accountNumber(newAccountNumber)
-                         .balance(initialBalance)
-                         .registerdAt(LocalDateTime.now())
-                         .build()));
+        return AccountDto.fromEntity(account);
     }
 
     private void validateCreateAccount(AccountUser accountUser) {
-        if(accountRepository.countByAccountUser(accountUser)>=10){
+        if(accountRepository.countByAccountUser(accountUser)>=MAX_ACCOUNT_PER_USER){
             throw new AccountException(ErrorCode.MAX_ACCOUNT_PER_USER_10);
         }
     }
 
-    @Transactional
+    @ReadOnlyTransactional
     public Account getAccount(Long id) {
         if (id < 0) {
             throw new RuntimeException("Minus");
         }
-        return accountRepository.findById(id).get();
+        return accountRepository.findWithAccountUserById(id).get();
     }
 
     public AccountDto deleteAccount(Long userId, String accountNumber) {
         AccountUser accountUser = getAccountUser(userId);
         Account account=accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(()->new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+        account.setBalance(latestBalance(account.getAccountNumber(), account.getBalance()));
         validateDeleteAccount(accountUser,account);
 
         account.setAccountStatus(AccountStatus.UNREGISTERED);
         account.setUnRegisterdAt(LocalDateTime.now());
 
         accountRepository.save(account);
+        userAccountDirectory.updateStatus(userId, accountNumber, AccountStatus.UNREGISTERED);
+        if (balanceEngine != null) {
+            afterCommit(() -> balanceEngine.unregister(accountNumber));
+        }
+        if (redisBalanceStore != null) {
+            afterCommit(() -> redisBalanceStore.unregister(accountNumber));
+        }
 
         return AccountDto.fromEntity(account);
     }
@@ -92,18 +135,63 @@ public class AccountService {
         }
 
     }
-    @Transactional
+    @Transactional //목록으로 계좌 생성 제한에도 쓰는 directory 를 채우므로 replica 가 아닌 primary 에서 읽음
     public List<AccountDto> getAccountsByUserId(Long userId){
+        UserAccountDirectory.Entry directory = userAccountDirectory.get(userId);
+        if (directory != null) {
+            List<AccountDto> accountDtos = directory.size() == 0 ? List.of() :
+                    accountRepository.findDtosByAccountNumberIn(directory.getAccountNumbers());
+            accountDtos.forEach(accountDto -> accountDto.setBalance(
+                    latestBalance(accountDto.getAccountNumber(), accountDto.getBalance())));
+            return accountDtos;
+        }
+
+        long directoryVersion = userAccountDirectory.version(userId);
         AccountUser accountUser = getAccountUser(userId);
         List<Account> accounts = accountRepository.findByAccountUser(accountUser);
+        userAccountDirectory.load(userId, accounts, directoryVersion);
 
         return accounts.stream()
-                .map(AccountDto::fromEntity)
+                .map(this::toAccountDto)
                 .collect(Collectors.toList());
     }
 
+    private AccountDto toAccountDto(Account account) {
+        AccountDto accountDto = AccountDto.fromEntity(account);
+        accountDto.setBalance(latestBalance(account.getAccountNumber(), account.getBalance()));
+        return accountDto;
+    }
+
+    /**
+     * 잔액 엔진, redis-lua, 저널 모드에서는 DB 잔액이 아직 반영 전 값일 수 있음
+     */
+    private Long latestBalance(String accountNumber, Long dbBalance) {
+        Long balance = null;
+        if (balanceEngine != null) {
+            balance = balanceEngine.balanceOf(accountNumber);
+        } else if (redisBalanceStore != null) {
+            balance = redisBalanceStore.balanceOf(accountNumber);
+        } else if (transactionJournal != null) {
+            balance = transactionJournal.balanceOf(accountNumber, dbBalance);
+        }
+        return balance != null ? balance : dbBalance;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
     private AccountUser getAccountUser(Long userId) {
-        AccountUser accountUser=accountUserRepository.findById(userId)
+        AccountUser accountUser=accountUserCache.findById(userId)
                 .orElseThrow(()->new AccountException(USER_NOT_FOUND));
         return accountUser;
     }
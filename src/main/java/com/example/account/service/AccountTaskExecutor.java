@@ -0,0 +1,14 @@
+package com.example.account.service;
+
+import com.example.account.aop.AccountLockIdInterface;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * 계좌 단위 작업 실행기
+ * 같은 계좌의 작업은 동시에 실행되지 않는 것을 보장한다.
+ */
+public interface AccountTaskExecutor {
+    <T> CompletableFuture<T> submit(AccountLockIdInterface request, Supplier<T> task);
+}
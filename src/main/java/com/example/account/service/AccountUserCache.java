@@ -0,0 +1,144 @@
+package com.example.account.service;
+
+import com.example.account.domain.AccountUser;
+import com.example.account.repository.AccountUserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 사용자 조회 near cache (userId -> 사용자)
+ * 계좌 생성/해지/목록, 잔액 사용마다 하던 사용자 PK 조회를 줄인다.
+ * 사용자는 이름만 있어 거의 바뀌지 않으므로 max-size 명까지 만료 없이 들고 있다. 없는 사용자는 캐시하지 않는다.
+ * 조회는 lock 없이 ConcurrentHashMap 에서 하고, 넘치면 CLOCK 방식(최근 조회 표시가 없는 것부터)으로 대략 LRU 처럼 내보낸다.
+ * 지금은 사용자를 바꾸거나 지우는 코드가 없다. (data.sql 로만 생김)
+ * 그런 코드를 추가하면 invalidate 를 함께 불러야 한다.
+ * 조회할 때마다 새 (detached) AccountUser 를 돌려주므로 호출하는 쪽에서 고쳐도 캐시에는 영향이 없다.
+ */
+@Component
+public class AccountUserCache {
+    private final AccountUserRepository accountUserRepository;
+    private final int maxSize;
+    private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final Object evictionLock = new Object();
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter evictionCounter;
+
+    private Iterator<Map.Entry<Long, Entry>> clockHand; //evictionLock 안에서만 씀
+
+    public AccountUserCache(
+            AccountUserRepository accountUserRepository,
+            MeterRegistry meterRegistry,
+            @Value("${account.user-cache.max-size:100000}") int maxSize) {
+        this.accountUserRepository = accountUserRepository;
+        this.maxSize = maxSize;
+        this.hitCounter = Counter.builder("account.user_cache.hit")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("account.user_cache.miss")
+                .register(meterRegistry);
+        this.evictionCounter = Counter.builder("account.user_cache.eviction")
+                .register(meterRegistry);
+        Gauge.builder("account.user_cache.size", entries, Map::size)
+                .register(meterRegistry);
+    }
+
+    public Optional<AccountUser> findById(Long userId) {
+        Entry entry = entries.get(userId);
+        if (entry != null) {
+            if (!entry.referenced) { //이미 표시돼 있으면 쓰지 않아 cache line 을 건드리지 않음
+                entry.referenced = true;
+            }
+            hitCounter.increment();
+            return Optional.of(entry.toAccountUser());
+        }
+        missCounter.increment();
+        Optional<AccountUser> accountUser = accountUserRepository.findById(userId);
+        accountUser.ifPresent(user -> {
+            entries.put(userId, new Entry(user));
+            evictIfFull();
+        });
+        return accountUser;
+    }
+
+    /**
+     * 시곗바늘(clock) 처럼 이어서 돌며 표시가 있으면 지우고 넘어가고, 없으면 내보낸다.
+     * 넣는 쪽(DB 를 다녀온 miss)에서만 부르므로 조회는 이 lock 을 기다리지 않는다.
+     */
+    private void evictIfFull() {
+        if (entries.size() <= maxSize) {
+            return;
+        }
+        synchronized (evictionLock) {
+            while (entries.size() > maxSize) {
+                if (clockHand == null || !clockHand.hasNext()) {
+                    clockHand = entries.entrySet().iterator();
+                    if (!clockHand.hasNext()) {
+                        return;
+                    }
+                }
+                Map.Entry<Long, Entry> candidate = clockHand.next();
+                if (candidate.getValue().referenced) {
+                    candidate.getValue().referenced = false;
+                } else if (entries.remove(candidate.getKey(), candidate.getValue())) {
+                    evictionCounter.increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * 사용자가 바뀌거나 지워질 때 호출, 트랜잭션 안이면 커밋 후에 한 번 더 내보낸다.
+     */
+    public void invalidate(Long userId) {
+        entries.remove(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            //커밋 전에 다른 요청이 옛 값을 다시 넣었을 수 있음
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    entries.remove(userId);
+                }
+            });
+        }
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    private static final class Entry {
+        private final Long id;
+        private final String name;
+        private final LocalDateTime createdAt;
+        private final LocalDateTime updatedAt;
+        private volatile boolean referenced;
+
+        private Entry(AccountUser accountUser) {
+            this.id = accountUser.getId();
+            this.name = accountUser.getName();
+            this.createdAt = accountUser.getCreatedAt();
+            this.updatedAt = accountUser.getUpdatedAt();
+        }
+
+        AccountUser toAccountUser() {
+            AccountUser accountUser = AccountUser.builder()
+                    .name(name)
+                    .build();
+            accountUser.setId(id);
+            accountUser.setCreatedAt(createdAt);
+            accountUser.setUpdatedAt(updatedAt);
+            return accountUser;
+        }
+    }
+}
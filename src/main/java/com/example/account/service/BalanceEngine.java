@@ -0,0 +1,450 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.exception.AccountException;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.ErrorCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * account.balance-engine.enabled=true 일 때 잔액의 기준
+ * 계좌번호(숫자)를 key 로 하는 open addressing 표를 stripe 로 나눠 들고, stripe 마다 lock 하나로만 쓴다.
+ * 차감할 때 소유주, 상태, 잔액 검증을 DB 조회 없이 여기서 끝낸다.
+ * 커밋된 잔액만 checkpoint-millis 마다 account 테이블에 내리고,
+ * 시작할 때 account 테이블과 마지막 checkpoint 이후의 거래 내역으로 다시 만든다.
+ * 잔액을 이 프로세스 메모리에서만 들고 있으므로 단일 노드 전용이다. (여러 노드가 같은 DB 를 쓰면 잔액이 갈라짐)
+ * 저널(account.journal.enabled) 이 켜져 있으면 만들지 않는다.
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression("${account.balance-engine.enabled:false} and !${account.journal.enabled:false}")
+public class BalanceEngine implements InitializingBean, DisposableBean {
+    private static final byte IN_USE = 1;
+    private static final byte DIRTY = 2;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Stripe[] stripes;
+    private final long checkpointMillis;
+    private final ScheduledExecutorService checkpointer;
+
+    public BalanceEngine(
+            JdbcTemplate jdbcTemplate,
+            @Value("${account.balance-engine.stripes:64}") int stripeCount,
+            @Value("${account.balance-engine.checkpoint-millis:1000}") long checkpointMillis) {
+        if (Integer.bitCount(stripeCount) != 1) {
+            throw new IllegalArgumentException("account.balance-engine.stripes must be a power of two");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.checkpointMillis = checkpointMillis;
+        this.checkpointer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "balance-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        rebuild();
+        checkpointer.scheduleWithFixedDelay(this::checkpointQuietly,
+                checkpointMillis, checkpointMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * account 테이블을 올리고, checkpoint(updated_at) 이후의 성공 거래는 시간 순으로 잔액을 덮어쓴다.
+     * 거래 시각은 stripe 안에서 계좌별로 증가하게 찍으므로 마지막 거래의 balanceSnapshot 이 마지막 잔액이다.
+     */
+    void rebuild() {
+        jdbcTemplate.query("select id, account_number, account_user_id, account_status, balance" +
+                        " from account",
+                (RowCallbackHandler) rs -> register(rs.getLong("id"), rs.getString("account_number"),
+                        rs.getLong("account_user_id"),
+                        AccountStatus.valueOf(rs.getString("account_status")),
+                        rs.getLong("balance")));
+        jdbcTemplate.query("select a.account_number, t.balance_snapshot, t.transacted_at" +
+                        " from transaction t join account a on a.id = t.account_id" +
+                        " where t.transaction_result_type = 'S' and t.transacted_at > a.updated_at" +
+                        " order by t.transacted_at",
+                (RowCallbackHandler) rs -> restore(rs.getString(1), rs.getLong(2),
+                        rs.getTimestamp(3).toLocalDateTime()));
+    }
+
+    public void register(Account account) {
+        register(account.getId(), account.getAccountNumber(), account.getAccountUser().getId(),
+                account.getAccountStatus(), account.getBalance());
+    }
+
+    private void register(long id, String accountNumber, long ownerId,
+                          AccountStatus status, long balance) {
+        long key = key(accountNumber);
+        Stripe stripe = stripe(key);
+        synchronized (stripe) {
+            int slot = stripe.insert(key);
+            stripe.ids[slot] = id;
+            stripe.owners[slot] = ownerId;
+            stripe.balances[slot] = balance;
+            stripe.flags[slot] = (byte) ((stripe.flags[slot] & DIRTY)
+                    | (status == AccountStatus.IN_USE ? IN_USE : 0));
+        }
+    }
+
+    private void restore(String accountNumber, long balance, LocalDateTime transactedAt) {
+        long key = key(accountNumber);
+        Stripe stripe = stripe(key);
+        synchronized (stripe) {
+            int slot = stripe.find(key);
+            if (slot >= 0) {
+                stripe.balances[slot] = balance;
+                stripe.stamps[slot] = micros(transactedAt);
+                stripe.lastStampMicros = Math.max(stripe.lastStampMicros, stripe.stamps[slot]);
+                stripe.markDirty(slot);
+            }
+        }
+    }
+
+    /**
+     * 검증 순서는 TransactionService 와 같다. 검증은 커밋 전 차감까지 본 잔액으로 하고,
+     * 트랜잭션이 롤백되면 차감을 되돌린다.
+     */
+    public Change debit(Long userId, String accountNumber, Long amount) {
+        long key = key(accountNumber);
+        Stripe stripe = stripe(key);
+        Change change;
+        synchronized (stripe) {
+            int slot = stripe.find(key);
+            if (slot < 0) {
+                throw new AccountException(ErrorCode.ACCOUNT_NOT_FOUND);
+            }
+            if (stripe.owners[slot] != userId) {
+                throw new AccountException(ErrorCode.USER_ACCOUNT_UN_MATCH);
+            }
+            if ((stripe.flags[slot] & IN_USE) == 0) {
+                throw new AccountException(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
+            }
+            if (stripe.balances[slot] < amount) {
+                throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+            }
+            change = stripe.apply(slot, -amount, inTransaction());
+        }
+        completeOnCommit(accountNumber, -amount);
+        return change;
+    }
+
+    public Change credit(String accountNumber, Long amount) {
+        long key = key(accountNumber);
+        Stripe stripe = stripe(key);
+        Change change;
+        synchronized (stripe) {
+            int slot = stripe.find(key);
+            if (slot < 0) {
+                throw new AccountException(ErrorCode.ACCOUNT_NOT_FOUND);
+            }
+            change = stripe.apply(slot, amount, inTransaction());
+        }
+        completeOnCommit(accountNumber, amount);
+        return change;
+    }
+
+    private static boolean inTransaction() {
+        return TransactionSynchronizationManager.isSynchronizationActive();
+    }
+
+    /**
+     * 트랜잭션 안의 변경은 끝날 때까지 진행 중으로 세고 checkpoint 대상에 넣지 않는다.
+     * 커밋되면 바뀐 계좌로 표시하고, 롤백되면 delta 를 되돌린다.
+     */
+    private void completeOnCommit(String accountNumber, long delta) {
+        if (!inTransaction()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                long key = key(accountNumber);
+                Stripe stripe = stripe(key);
+                synchronized (stripe) {
+                    stripe.complete(stripe.find(key), status == STATUS_COMMITTED ? 0 : -delta);
+                }
+            }
+        });
+    }
+
+    public void unregister(String accountNumber) {
+        long key = key(accountNumber);
+        Stripe stripe = stripe(key);
+        synchronized (stripe) {
+            int slot = stripe.find(key);
+            if (slot >= 0) {
+                stripe.flags[slot] &= ~IN_USE;
+            }
+        }
+    }
+
+    public Long balanceOf(String accountNumber) {
+        long key = key(accountNumber);
+        Stripe stripe = stripe(key);
+        synchronized (stripe) {
+            int slot = stripe.find(key);
+            return slot < 0 ? null : stripe.balances[slot];
+        }
+    }
+
+    /**
+     * 바뀐 계좌만 잔액과 updated_at(그 계좌의 마지막 거래 시각) 을 내린다. 실패하면 다음 번에 다시 내린다.
+     * 커밋되지 않은 변경이 남아 있는 계좌는 그 잔액이 커밋된 값이 아니므로 다음 번으로 미룬다.
+     */
+    void checkpoint() {
+        for (Stripe stripe : stripes) {
+            List<Object[]> rows;
+            long[] keys;
+            synchronized (stripe) {
+                if (stripe.dirtyCount == 0) {
+                    continue;
+                }
+                keys = stripe.drainDirty();
+                rows = new ArrayList<>(keys.length);
+                for (long key : keys) {
+                    int slot = stripe.find(key);
+                    rows.add(new Object[]{stripe.balances[slot],
+                            Timestamp.valueOf(toLocalDateTime(stripe.stamps[slot])), String.valueOf(key)});
+                }
+            }
+            if (rows.isEmpty()) {
+                continue;
+            }
+            try {
+                //잔액은 엔진이 기준이므로 version 은 올리지 않는다. (deleteAccount 같은 JPA 저장이 충돌하지 않게)
+                jdbcTemplate.batchUpdate("update account set balance = ?, updated_at = ?" +
+                        " where account_number = ?", rows);
+            } catch (RuntimeException e) {
+                synchronized (stripe) {
+                    for (long key : keys) {
+                        stripe.markDirty(stripe.find(key));
+                    }
+                }
+                throw e;
+            }
+        }
+    }
+
+    private void checkpointQuietly() {
+        try {
+            checkpoint();
+        } catch (RuntimeException e) {
+            log.error("Balance checkpoint failed", e);
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        checkpointer.shutdown();
+        checkpointer.awaitTermination(10, TimeUnit.SECONDS);
+        checkpointQuietly();
+    }
+
+    private Stripe stripe(long key) {
+        return stripes[(int) (spread(key) >>> 40) & (stripes.length - 1)];
+    }
+
+    private static long key(String accountNumber) {
+        try {
+            long key = Long.parseLong(accountNumber);
+            return key > 0 ? key : -1L;
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+
+    private static long micros(LocalDateTime dateTime) {
+        return ChronoUnit.MICROS.between(Instant.EPOCH, dateTime.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    private static LocalDateTime toLocalDateTime(long micros) {
+        return LocalDateTime.ofInstant(Instant.EPOCH.plus(micros, ChronoUnit.MICROS), ZoneId.systemDefault());
+    }
+
+    private static long spread(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static final class Change {
+        private final Long accountId;
+        private final Long balance;
+        private final LocalDateTime appliedAt;
+    }
+
+    /**
+     * key 0 은 빈 자리, 선형 탐사, 절반이 차면 두 배로 늘린다.
+     */
+    private static final class Stripe {
+        private long[] keys = new long[16];
+        private long[] ids = new long[16];
+        private long[] owners = new long[16];
+        private long[] balances = new long[16];
+        private byte[] flags = new byte[16];
+        private long[] stamps = new long[16]; //계좌의 마지막 거래 시각 (마이크로초)
+        private int[] inflight = new int[16]; //커밋 / 롤백 전인 변경 수
+        private int size;
+
+        private long[] dirtyKeys = new long[16];
+        private int dirtyCount;
+        private long lastStampMicros = ChronoUnit.MICROS.between(Instant.EPOCH, Instant.now());
+
+        int find(long key) {
+            if (key <= 0) {
+                return -1;
+            }
+            int mask = keys.length - 1;
+            for (int slot = (int) spread(key) & mask; keys[slot] != 0; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        int insert(long key) {
+            if (key <= 0) {
+                throw new IllegalArgumentException("accountNumber must be numeric : " + key);
+            }
+            int found = find(key);
+            if (found >= 0) {
+                return found;
+            }
+            if ((size + 1) * 2 > keys.length) {
+                grow();
+            }
+            int mask = keys.length - 1;
+            int slot = (int) spread(key) & mask;
+            while (keys[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            size++;
+            return slot;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            long[] oldIds = ids;
+            long[] oldOwners = owners;
+            long[] oldBalances = balances;
+            byte[] oldFlags = flags;
+            long[] oldStamps = stamps;
+            int[] oldInflight = inflight;
+            int capacity = oldKeys.length * 2;
+            keys = new long[capacity];
+            ids = new long[capacity];
+            owners = new long[capacity];
+            balances = new long[capacity];
+            flags = new byte[capacity];
+            stamps = new long[capacity];
+            inflight = new int[capacity];
+            int mask = capacity - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] == 0) {
+                    continue;
+                }
+                int slot = (int) spread(oldKeys[i]) & mask;
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                ids[slot] = oldIds[i];
+                owners[slot] = oldOwners[i];
+                balances[slot] = oldBalances[i];
+                flags[slot] = oldFlags[i];
+                stamps[slot] = oldStamps[i];
+                inflight[slot] = oldInflight[i];
+            }
+        }
+
+        Change apply(int slot, long delta, boolean pending) {
+            balances[slot] += delta;
+            stamps[slot] = nextStamp();
+            if (pending) {
+                inflight[slot]++;
+            } else {
+                markDirty(slot);
+            }
+            return new Change(ids[slot], balances[slot], toLocalDateTime(stamps[slot]));
+        }
+
+        //커밋이면 revert 0, 롤백이면 되돌릴 delta
+        void complete(int slot, long revert) {
+            balances[slot] += revert;
+            inflight[slot]--;
+            if (revert == 0) {
+                markDirty(slot);
+            }
+        }
+
+        void markDirty(int slot) {
+            if ((flags[slot] & DIRTY) != 0) {
+                return;
+            }
+            flags[slot] |= DIRTY;
+            if (dirtyCount == dirtyKeys.length) {
+                long[] grown = new long[dirtyKeys.length * 2];
+                System.arraycopy(dirtyKeys, 0, grown, 0, dirtyCount);
+                dirtyKeys = grown;
+            }
+            dirtyKeys[dirtyCount++] = keys[slot];
+        }
+
+        //진행 중인 변경이 없는 계좌만 꺼내고 나머지는 다음 번을 위해 남긴다
+        long[] drainDirty() {
+            long[] drained = new long[dirtyCount];
+            int drainedCount = 0;
+            int kept = 0;
+            for (int i = 0; i < dirtyCount; i++) {
+                int slot = find(dirtyKeys[i]);
+                if (inflight[slot] > 0) {
+                    dirtyKeys[kept++] = dirtyKeys[i];
+                    continue;
+                }
+                flags[slot] &= ~DIRTY;
+                drained[drainedCount++] = dirtyKeys[i];
+            }
+            dirtyCount = kept;
+            return Arrays.copyOf(drained, drainedCount);
+        }
+
+        //같은 stripe 안에서는 거래 시각이 겹치지 않고 늘어나게 (마이크로초)
+        private long nextStamp() {
+            lastStampMicros = Math.max(ChronoUnit.MICROS.between(Instant.EPOCH, Instant.now()),
+                    lastStampMicros + 1);
+            return lastStampMicros;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.type.ErrorCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * SELECT ... FOR UPDATE 로 계좌 row 를 잠근다.
+ * lock 에서 트랜잭션을 열고 unlock 에서 커밋하므로
+ * 그 사이의 서비스 호출은 모두 같은 트랜잭션에 참여한다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "account.lock.strategy", havingValue = "db")
+@RequiredArgsConstructor
+public class DbRowLockStrategy implements LockStrategy {
+    private final PlatformTransactionManager transactionManager;
+    private final AccountRepository accountRepository;
+
+    private final ThreadLocal<Deque<TransactionStatus>> lockedTransactions =
+            ThreadLocal.withInitial(ArrayDeque::new);
+
+    @Override
+    public void lock(String accountNumber) {
+        log.debug("Trying lock for accountNumber : {}", accountNumber);
+        TransactionStatus status =
+                transactionManager.getTransaction(TransactionDefinition.withDefaults());
+        try {
+            accountRepository.findByAccountNumberForUpdate(accountNumber);
+        } catch (RuntimeException e) {
+            transactionManager.rollback(status);
+            if (e instanceof PessimisticLockingFailureException) {
+                log.error("======= Lock acquisition failed=======");
+                throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+            }
+            throw e;
+        }
+        lockedTransactions.get().push(status);
+    }
+
+    @Override
+    public void unlock(String accountNumber) {
+        log.debug("Unlock for accountNumber : {} ", accountNumber);
+        Deque<TransactionStatus> statuses = lockedTransactions.get();
+        TransactionStatus status = statuses.poll();
+        if (statuses.isEmpty()) {
+            lockedTransactions.remove();
+        }
+        if (status == null) {
+            return;
+        }
+
+        if (status.isRollbackOnly()) {
+            transactionManager.rollback(status);
+        } else {
+            transactionManager.commit(status);
+        }
+    }
+}
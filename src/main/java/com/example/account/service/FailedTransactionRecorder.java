@@ -0,0 +1,131 @@
+package com.example.account.service;
+
+import com.example.account.dto.FailedTransaction;
+import com.example.account.type.TransactionType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 실패 거래 기록을 요청 스레드에서 떼어낸다.
+ * 요청 스레드는 bounded queue 에 넣기만 하고, writer 스레드가 batch-size 만큼 모아 한 번에 insert 한다.
+ * queue 가 가득 차면 overflow 로 세고 요청 스레드에서 바로 저장한다.
+ * 종료 시에는 남은 기록을 모두 저장한 뒤 멈춘다.
+ * balanceSnapshot 은 실패 시점이 아니라 writer 가 insert 하는 시점의 잔액으로 남는다.
+ */
+@Slf4j
+@Component
+public class FailedTransactionRecorder implements InitializingBean, DisposableBean {
+    private static final long POLL_MILLIS = 100L;
+
+    private final TransactionService transactionService;
+    private final BlockingQueue<FailedTransaction> queue;
+    private final int batchSize;
+    private final Counter overflowCounter;
+    private final Counter droppedCounter;
+    private final Thread writer;
+
+    private volatile boolean running = true;
+
+    public FailedTransactionRecorder(
+            TransactionService transactionService,
+            MeterRegistry meterRegistry,
+            @Value("${account.failed-recorder.capacity:10000}") int capacity,
+            @Value("${account.failed-recorder.batch-size:100}") int batchSize) {
+        this.transactionService = transactionService;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.overflowCounter = Counter.builder("account.failed_transaction.overflow")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("account.failed_transaction.dropped")
+                .register(meterRegistry);
+        Gauge.builder("account.failed_transaction.queue", queue, BlockingQueue::size)
+                .register(meterRegistry);
+        this.writer = new Thread(this::drainLoop, "failed-transaction-writer");
+        this.writer.setDaemon(true);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        writer.start();
+    }
+
+    public void record(TransactionType transactionType, String accountNumber, Long amount) {
+        FailedTransaction failedTransaction = FailedTransaction.builder()
+                .transactionType(transactionType)
+                .accountNumber(accountNumber)
+                .amount(amount)
+                .failedAt(LocalDateTime.now())
+                .build();
+        if (running && queue.offer(failedTransaction)) {
+            return;
+        }
+        overflowCounter.increment();
+        write(Collections.singletonList(failedTransaction));
+    }
+
+    private void drainLoop() {
+        List<FailedTransaction> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                FailedTransaction first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    void flush() {
+        List<FailedTransaction> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void write(List<FailedTransaction> batch) {
+        try {
+            transactionService.saveFailedTransactions(batch);
+        } catch (RuntimeException e) {
+            log.error("Failed to save {} failed transactions", batch.size(), e);
+            droppedCounter.increment(batch.size());
+        }
+    }
+
+    //writer 가 완전히 멈춘 뒤에만 남은 기록을 비워 두 writer 가 겹치지 않게 한다.
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+        if (writer.isAlive()) {
+            writer.interrupt();
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        if (writer.isAlive()) {
+            log.error("Failed transaction writer did not stop, {} records not flushed", queue.size());
+            return;
+        }
+        flush();
+    }
+}
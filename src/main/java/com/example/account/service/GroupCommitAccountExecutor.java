@@ -0,0 +1,179 @@
+package com.example.account.service;
+
+import com.example.account.aop.AccountLockIdInterface;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+
+import javax.persistence.EntityManager;
+import javax.persistence.FlushModeType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * account.concurrency.mode=group-commit
+ * max-delay-millis 동안 또는 max-batch 개가 모일 때까지 요청을 모아 committer 스레드 하나가
+ * 한 트랜잭션 안에서 차례로 실행하고 한 번에 커밋한다.
+ * 검증은 영속성 컨텍스트의 계좌로 메모리에서 하고, UPDATE / INSERT 는 커밋 때 JDBC batch 로 나간다.
+ * 검증 실패(AccountException)는 쓰기 전에 나므로 같은 batch 의 다른 요청에 영향이 없다.
+ * 커밋이 실패하면 성공했던 요청만 각자의 트랜잭션으로 다시 실행한다.
+ * committer 하나가 JVM 안의 모든 계좌를 직렬화하므로 서버가 여러 대면 @Version 충돌이 날 수 있다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "account.concurrency.mode", havingValue = "group-commit")
+public class GroupCommitAccountExecutor implements AccountTaskExecutor, InitializingBean, DisposableBean {
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager entityManager;
+    private final BlockingQueue<Entry<?>> queue;
+    private final int maxBatch;
+    private final long maxDelayNanos;
+    private final Thread committer;
+
+    private volatile boolean running = true;
+
+    public GroupCommitAccountExecutor(
+            PlatformTransactionManager transactionManager,
+            EntityManager entityManager,
+            @Value("${account.group-commit.max-batch:64}") int maxBatch,
+            @Value("${account.group-commit.max-delay-millis:2}") long maxDelayMillis,
+            @Value("${account.group-commit.max-queue-depth:4096}") int maxQueueDepth) {
+        this.transactionManager = transactionManager;
+        this.entityManager = entityManager;
+        this.queue = new ArrayBlockingQueue<>(maxQueueDepth);
+        this.maxBatch = maxBatch;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.committer = new Thread(this::commitLoop, "group-committer");
+        this.committer.setDaemon(true);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        committer.start();
+    }
+
+    @Override
+    public <T> CompletableFuture<T> submit(AccountLockIdInterface request, Supplier<T> task) {
+        Entry<T> entry = new Entry<>(task);
+        if (!running || !queue.offer(entry)) {
+            log.error("======= Group commit queue saturated for accountNumber : {} =======",
+                    request.getAccountNumber());
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        }
+        return entry.future;
+    }
+
+    private void commitLoop() {
+        List<Entry<?>> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                Entry<?> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < maxBatch) {
+                    Entry<?> next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Group commit failed", e);
+                batch.forEach(entry -> entry.future.completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    void commit(List<Entry<?>> batch) {
+        TransactionStatus status =
+                transactionManager.getTransaction(TransactionDefinition.withDefaults());
+        try {
+            entityManager.setFlushMode(FlushModeType.COMMIT); //조회마다 flush 하지 않고 커밋 때 한 번에 batch 로 내보냄
+            batch.forEach(Entry::run);
+        } catch (RuntimeException e) {
+            transactionManager.rollback(status);
+            throw e;
+        }
+        try {
+            transactionManager.commit(status);
+        } catch (RuntimeException e) {
+            log.warn("Group commit of {} requests failed, retrying one by one", batch.size(), e);
+            batch.forEach(this::commitAlone);
+            return;
+        }
+        batch.forEach(Entry::complete);
+    }
+
+    private void commitAlone(Entry<?> entry) {
+        if (entry.error != null) {
+            entry.complete();
+            return;
+        }
+        TransactionStatus status =
+                transactionManager.getTransaction(TransactionDefinition.withDefaults());
+        entry.run();
+        try {
+            transactionManager.commit(status);
+        } catch (RuntimeException e) {
+            if (entry.error == null) {
+                entry.error = e instanceof ObjectOptimisticLockingFailureException
+                        ? new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK) : e;
+            }
+        }
+        entry.complete();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        committer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    static final class Entry<T> {
+        private final Supplier<T> task;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private T result;
+        private Throwable error;
+
+        Entry(Supplier<T> task) {
+            this.task = task;
+        }
+
+        void run() {
+            try {
+                result = task.get();
+                error = null;
+            } catch (RuntimeException e) {
+                error = e; //AccountException 이 아니면 트랜잭션이 rollback-only 가 되어 커밋에서 실패한다.
+            }
+        }
+
+        void complete() {
+            if (error != null) {
+                future.completeExceptionally(error);
+            } else {
+                future.complete(result);
+            }
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBucket;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency-Key 헤더가 있는 요청의 첫 결과(성공 응답 또는 에러 코드)를 요청 본문의 hash 와 함께 TTL 동안 보관한다.
+ * 같은 키, 같은 본문으로 다시 오면 lock 이나 DB 를 거치지 않고 보관한 결과를 돌려주고,
+ * 같은 키로 다른 본문이 오면 IDEMPOTENCY_KEY_REUSED 로 거절한다.
+ * 처리 중 표시는 pending-lease-seconds 만 잡아 두어 결과를 남기지 못하고 죽은 서버의 키가 오래 막히지 않게 한다.
+ * 처리 중에는 lease 의 1/3 마다 연장하고, 연장과 결과 저장은 키가 아직 자기 P|fingerprint 일 때만 한다.
+ * (lease 를 놓친 사이 다른 서버가 키를 잡았다면 그 서버의 표시나 결과를 덮어쓰지 않는다.)
+ * Redis 에 두고 서버마다 최근 결과를 near cache 로 들고 있으며,
+ * 같은 서버에서 처리 중인 키는 먼저 온 요청의 결과를 함께 기다린다.
+ * lock 획득 실패처럼 다시 시도하면 될 수 있는 에러는 보관하지 않는다.
+ */
+@Slf4j
+@Component
+public class IdempotencyCache implements DisposableBean {
+    public static final String HEADER = "Idempotency-Key";
+
+    private static final String KEY_PREFIX = "IDEM:";
+    private static final int MAX_KEY_LENGTH = 64;
+    private static final String PENDING_PREFIX = "P|";
+    private static final String SUCCESS_PREFIX = "S|";
+    private static final String ERROR_PREFIX = "E|";
+    private static final int FINGERPRINT_LENGTH = 64; //SHA-256 hex
+    private static final Set<ErrorCode> RETRYABLE_ERRORS = EnumSet.of(
+            ErrorCode.ACCOUNT_TRANSACTION_LOCK, ErrorCode.INTERNAL_SERVER_ERROR);
+
+    //ARGV[1] : 처리 중 표시 P|fingerprint, ARGV[2] : lease(ms)
+    private static final String RENEW_SCRIPT =
+            "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+            "  return redis.call('pexpire', KEYS[1], ARGV[2]) " +
+            "end " +
+            "return 0";
+
+    //ARGV[1] : 처리 중 표시 P|fingerprint, ARGV[2] : 결과, ARGV[3] : ttl(ms)
+    private static final String STORE_SCRIPT =
+            "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+            "  redis.call('set', KEYS[1], ARGV[2], 'px', ARGV[3]) " +
+            "  return 1 " +
+            "end " +
+            "return 0";
+
+    //ARGV[1] : 처리 중 표시 P|fingerprint
+    private static final String RELEASE_SCRIPT =
+            "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+            "  return redis.call('del', KEYS[1]) " +
+            "end " +
+            "return 0";
+
+    private final RedissonClient redissonClient;
+    private final ObjectMapper objectMapper;
+    private final long ttlMillis;
+    private final long pendingLeaseMillis;
+    private final Counter replayCounter;
+    private final Map<String, Cached> nearCache;
+    private final RScript script;
+    private final String renewSha;
+    private final String storeSha;
+    private final String releaseSha;
+    private final ScheduledExecutorService leaseRenewer;
+    private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyCache(
+            RedissonClient redissonClient,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${account.idempotency.ttl-seconds:86400}") long ttlSeconds,
+            @Value("${account.idempotency.pending-lease-seconds:30}") long pendingLeaseSeconds,
+            @Value("${account.idempotency.near-cache-size:10000}") int nearCacheSize) {
+        this.redissonClient = redissonClient;
+        this.objectMapper = objectMapper;
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+        this.pendingLeaseMillis = TimeUnit.SECONDS.toMillis(pendingLeaseSeconds);
+        this.replayCounter = Counter.builder("account.idempotency.replay")
+                .register(meterRegistry);
+        this.nearCache = Collections.synchronizedMap(
+                new LinkedHashMap<String, Cached>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, Cached> eldest) {
+                        return size() > nearCacheSize;
+                    }
+                });
+        this.script = redissonClient.getScript(StringCodec.INSTANCE);
+        this.renewSha = script.scriptLoad(RENEW_SCRIPT);
+        this.storeSha = script.scriptLoad(STORE_SCRIPT);
+        this.releaseSha = script.scriptLoad(RELEASE_SCRIPT);
+        this.leaseRenewer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "idempotency-lease-renew");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * idempotencyKey 가 없으면 action 을 그대로 실행한다.
+     * scope 는 키가 겹치지 않도록 API 와 계좌번호로 나누고, request 는 본문 비교에 쓰는 요청 body 이다.
+     */
+    public <T> CompletableFuture<T> execute(String scope, String idempotencyKey, Object request,
+                                            Class<T> responseType,
+                                            Supplier<CompletableFuture<T>> action) {
+        if (idempotencyKey == null) {
+            return action.get();
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            return CompletableFuture.failedFuture(new AccountException(ErrorCode.INVALID_REQUEST));
+        }
+        String key = KEY_PREFIX + scope + ":" + idempotencyKey;
+        String fingerprint;
+        try {
+            fingerprint = fingerprint(request);
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(new AccountException(ErrorCode.INVALID_REQUEST));
+        }
+        Cached cached = nearCache.get(key);
+        if (cached != null && cached.expiresAt > System.currentTimeMillis()) {
+            replayCounter.increment();
+            return replay(cached.value, fingerprint, responseType);
+        }
+
+        CompletableFuture<T> created = new CompletableFuture<>();
+        InFlight claimed = new InFlight(fingerprint, created);
+        InFlight running = inFlight.putIfAbsent(key, claimed);
+        if (running != null) {
+            if (!running.fingerprint.equals(fingerprint)) {
+                return CompletableFuture.failedFuture(new AccountException(ErrorCode.IDEMPOTENCY_KEY_REUSED));
+            }
+            replayCounter.increment();
+            return running.future.thenApply(responseType::cast);
+        }
+        CompletableFuture<T> result;
+        try {
+            result = claimAndRun(key, fingerprint, responseType, action);
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+        result.whenComplete((value, error) -> {
+            inFlight.remove(key, claimed);
+            if (error == null) {
+                created.complete(value);
+            } else {
+                created.completeExceptionally(error);
+            }
+        });
+        return created;
+    }
+
+    private <T> CompletableFuture<T> claimAndRun(String key, String fingerprint, Class<T> responseType,
+                                                 Supplier<CompletableFuture<T>> action) {
+        RBucket<String> bucket = redissonClient.getBucket(key, StringCodec.INSTANCE);
+        String pending = PENDING_PREFIX + fingerprint;
+        if (!bucket.trySet(pending, pendingLeaseMillis, TimeUnit.MILLISECONDS)) {
+            String stored = bucket.get();
+            if (stored == null) {
+                throw new AccountException(ErrorCode.IDEMPOTENCY_KEY_IN_USE);
+            }
+            if (!fingerprint.equals(fingerprintOf(stored))) {
+                throw new AccountException(ErrorCode.IDEMPOTENCY_KEY_REUSED);
+            }
+            if (stored.startsWith(PENDING_PREFIX)) {
+                throw new AccountException(ErrorCode.IDEMPOTENCY_KEY_IN_USE);
+            }
+            nearCache.put(key, new Cached(stored, System.currentTimeMillis() + ttlMillis));
+            replayCounter.increment();
+            return replay(stored, fingerprint, responseType);
+        }
+
+        long renewMillis = Math.max(1L, pendingLeaseMillis / 3);
+        ScheduledFuture<?> renewal = leaseRenewer.scheduleAtFixedRate(
+                () -> renew(key, pending), renewMillis, renewMillis, TimeUnit.MILLISECONDS);
+        CompletableFuture<T> future;
+        try {
+            future = action.get();
+        } catch (RuntimeException e) {
+            renewal.cancel(false);
+            release(key, pending);
+            throw e;
+        }
+        return future.whenComplete((value, error) -> {
+            renewal.cancel(false);
+            store(key, fingerprint, value, error);
+        });
+    }
+
+    private void renew(String key, String pending) {
+        script.<Boolean>evalShaAsync(RScript.Mode.READ_WRITE, renewSha, RScript.ReturnType.BOOLEAN,
+                        Collections.singletonList(key), pending, String.valueOf(pendingLeaseMillis))
+                .whenComplete((renewed, error) -> {
+                    if (error != null) {
+                        log.warn("Failed to renew idempotency lease : {}", key, error);
+                    } else if (!Boolean.TRUE.equals(renewed)) {
+                        log.warn("Lost idempotency lease : {}", key);
+                    }
+                });
+    }
+
+    //결과를 남길 때 비로소 ttl 을 건다
+    private void store(String key, String fingerprint, Object value, Throwable error) {
+        String pending = PENDING_PREFIX + fingerprint;
+        try {
+            String stored;
+            if (error == null) {
+                stored = SUCCESS_PREFIX + fingerprint + "|" + objectMapper.writeValueAsString(value);
+            } else {
+                AccountException accountException = accountException(error);
+                if (accountException == null
+                        || RETRYABLE_ERRORS.contains(accountException.getErrorCode())) {
+                    release(key, pending);
+                    return;
+                }
+                stored = ERROR_PREFIX + fingerprint + "|" + accountException.getErrorCode().name();
+            }
+            Cached cached = new Cached(stored, System.currentTimeMillis() + ttlMillis);
+            nearCache.put(key, cached);
+            script.<Boolean>evalShaAsync(RScript.Mode.READ_WRITE, storeSha, RScript.ReturnType.BOOLEAN,
+                            Collections.singletonList(key), pending, stored, String.valueOf(ttlMillis))
+                    .whenComplete((saved, storeError) -> {
+                        if (storeError != null || !Boolean.TRUE.equals(saved)) {
+                            //다른 서버가 키를 잡았으면 그쪽 결과가 기준이므로 near cache 에서도 뺀다
+                            nearCache.remove(key, cached);
+                            log.warn("Idempotent result not stored, lease lost : {}", key, storeError);
+                        }
+                    });
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.error("Failed to store idempotent result : {}", key, e);
+            release(key, pending);
+        }
+    }
+
+    private void release(String key, String pending) {
+        script.evalShaAsync(RScript.Mode.READ_WRITE, releaseSha, RScript.ReturnType.INTEGER,
+                Collections.singletonList(key), pending);
+    }
+
+    //stored : S|fingerprint|응답 json, E|fingerprint|에러 코드
+    private <T> CompletableFuture<T> replay(String stored, String fingerprint, Class<T> responseType) {
+        if (!fingerprint.equals(fingerprintOf(stored))) {
+            return CompletableFuture.failedFuture(new AccountException(ErrorCode.IDEMPOTENCY_KEY_REUSED));
+        }
+        String body = stored.substring(SUCCESS_PREFIX.length() + FINGERPRINT_LENGTH + 1);
+        if (stored.startsWith(ERROR_PREFIX)) {
+            return CompletableFuture.failedFuture(new AccountException(ErrorCode.valueOf(body)));
+        }
+        try {
+            return CompletableFuture.completedFuture(objectMapper.readValue(body, responseType));
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private String fingerprint(Object request) throws JsonProcessingException {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(objectMapper.writeValueAsBytes(request)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String fingerprintOf(String stored) {
+        return stored.length() < PENDING_PREFIX.length() + FINGERPRINT_LENGTH ? null
+                : stored.substring(PENDING_PREFIX.length(), PENDING_PREFIX.length() + FINGERPRINT_LENGTH);
+    }
+
+    private static AccountException accountException(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                ? error.getCause() : error;
+        return cause instanceof AccountException ? (AccountException) cause : null;
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        leaseRenewer.shutdown();
+        leaseRenewer.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private static final class InFlight {
+        private final String fingerprint;
+        private final CompletableFuture<?> future;
+
+        private InFlight(String fingerprint, CompletableFuture<?> future) {
+            this.fingerprint = fingerprint;
+            this.future = future;
+        }
+    }
+
+    private static final class Cached {
+        private final String value;
+        private final long expiresAt;
+
+        private Cached(String value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 서버가 한 대일 때만 쓰는 JVM 내부 lock
+ * Redis, DB 왕복이 없다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "account.lock.strategy", havingValue = "in-process")
+public class InProcessLockStrategy implements LockStrategy {
+    private static final int LOCK_STRIPES = 1024;
+    private static final long WAIT_TIME_MILLIS = 1000L;
+
+    private final StripedLockTable locks = new StripedLockTable(LOCK_STRIPES);
+
+    @Override
+    public void lock(String accountNumber) {
+        log.debug("Trying lock for accountNumber : {}", accountNumber);
+        try {
+            if (!locks.tryLock(accountNumber, WAIT_TIME_MILLIS, TimeUnit.MILLISECONDS)) {
+                log.error("======= Lock acquisition failed=======");
+                throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        }
+    }
+
+    @Override
+    public void unlock(String accountNumber) {
+        log.debug("Unlock for accountNumber : {} ", accountNumber);
+        locks.unlock(accountNumber);
+    }
+}
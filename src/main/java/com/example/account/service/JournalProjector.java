@@ -0,0 +1,158 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.Transaction;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.example.account.type.TransactionResultType.S;
+
+/**
+ * 저널 레코드를 batch 단위로 account / transaction 테이블에 반영한다.
+ * 반영한 위치(next_sequence)를 같은 트랜잭션에서 저장하므로 재시작하면 그 다음부터 다시 반영한다.
+ * 잔액은 레코드의 balanceSnapshot 으로 덮어쓰므로 같은 계좌가 batch 에 여러 번 나와도 마지막 값이 남는다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "account.journal.enabled", havingValue = "true")
+public class JournalProjector implements InitializingBean, DisposableBean {
+    private static final long IDLE_MILLIS = 10L;
+    private static final long RETRY_MILLIS = 1000L;
+
+    private final TransactionJournal transactionJournal;
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final Thread projector;
+
+    @Autowired(required = false) //account.known-id-filter.enabled=true 일 때만 있음, 재시작 전에 쌓인 거래도 넣는다
+    private KnownIdFilter knownIdFilter;
+
+    private volatile boolean running = true;
+    private long nextSequence;
+
+    public JournalProjector(
+            TransactionJournal transactionJournal,
+            AccountRepository accountRepository,
+            TransactionRepository transactionRepository,
+            PlatformTransactionManager transactionManager,
+            JdbcTemplate jdbcTemplate,
+            @Value("${account.journal.projector-batch-size:500}") int batchSize) {
+        this.transactionJournal = transactionJournal;
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+        this.projector = new Thread(this::projectLoop, "journal-projector");
+        this.projector.setDaemon(true);
+        jdbcTemplate.execute("create table if not exists transaction_journal_checkpoint" +
+                " (id int primary key, next_sequence bigint not null)");
+        jdbcTemplate.update("insert into transaction_journal_checkpoint (id, next_sequence)" +
+                " select 1, 0 where not exists" +
+                " (select 1 from transaction_journal_checkpoint where id = 1)");
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        nextSequence = jdbcTemplate.queryForObject(
+                "select next_sequence from transaction_journal_checkpoint where id = 1", Long.class);
+        transactionJournal.recover(nextSequence);
+        projector.start();
+    }
+
+    private void projectLoop() {
+        while (running) {
+            try {
+                if (projectNext() == 0) {
+                    TimeUnit.MILLISECONDS.sleep(IDLE_MILLIS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Failed to project journal from sequence {}", nextSequence, e);
+                try {
+                    TimeUnit.MILLISECONDS.sleep(RETRY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    synchronized int projectNext() {
+        List<JournalRecord> records = transactionJournal.read(nextSequence, batchSize);
+        if (records.isEmpty()) {
+            return 0;
+        }
+        long projectedUntil = records.get(records.size() - 1).getSequence() + 1;
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<String, Account> accounts = accountRepository.findByAccountNumberIn(
+                            records.stream()
+                                    .map(JournalRecord::getAccountNumber)
+                                    .distinct()
+                                    .collect(Collectors.toList()))
+                    .stream()
+                    .collect(Collectors.toMap(Account::getAccountNumber, Function.identity()));
+
+            List<Transaction> transactions = new ArrayList<>(records.size());
+            for (JournalRecord record : records) {
+                Account account = accounts.get(record.getAccountNumber());
+                if (account == null) {
+                    log.warn("Skip journal record {} for unknown accountNumber : {}",
+                            record.getSequence(), record.getAccountNumber());
+                    continue;
+                }
+                account.setBalance(record.getBalanceSnapshot());
+                transactions.add(Transaction.builder()
+                        .transactionType(record.getTransactionType())
+                        .transactionResultType(S)
+                        .account(account)
+                        .amount(record.getAmount())
+                        .balanceSnapshot(record.getBalanceSnapshot())
+                        .transactionId(record.getTransactionId())
+                        .transactedAt(record.getTransactedAt())
+                        .build());
+            }
+            if (knownIdFilter != null) {
+                transactions.forEach(transaction -> knownIdFilter.addTransactionId(transaction.getTransactionId()));
+            }
+            transactionRepository.saveAll(transactions);
+            jdbcTemplate.update("update transaction_journal_checkpoint set next_sequence = ? where id = 1",
+                    projectedUntil);
+        });
+        nextSequence = projectedUntil;
+        transactionJournal.projected(records, projectedUntil);
+        return records.size();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        projector.join(TimeUnit.SECONDS.toMillis(10));
+        while (projectNext() > 0) {
+            //종료 전에 남은 레코드를 모두 반영
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.account.service;
+
+import com.example.account.dto.TransactionDto;
+import com.example.account.type.TransactionType;
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.zip.CRC32;
+
+import static com.example.account.type.TransactionResultType.S;
+
+/**
+ * 저널에 남기는 성공 거래 한 건 (고정 96 byte)
+ *
+ *  0 sequence        8
+ *  8 transactionType 1 (0 이면 빈 자리)
+ *  9 transactionId 길이 1
+ * 16 accountNumber   8
+ * 24 amount          8
+ * 32 balanceSnapshot 8
+ * 40 transactedAt    8 (epoch millis, UTC 기준)
+ * 48 transactionId  32
+ * 80 crc32           4
+ */
+@Getter
+class JournalRecord {
+    static final int SIZE = 96;
+    private static final int CRC_OFFSET = 80;
+    private static final int MAX_TRANSACTION_ID_LENGTH = 32;
+    private static final TransactionType[] TYPES = TransactionType.values();
+
+    private final long sequence;
+    private final TransactionType transactionType;
+    private final String accountNumber;
+    private final Long amount;
+    private final Long balanceSnapshot;
+    private final String transactionId;
+    private final LocalDateTime transactedAt;
+
+    JournalRecord(long sequence, TransactionType transactionType, String accountNumber,
+                  Long amount, Long balanceSnapshot, String transactionId,
+                  LocalDateTime transactedAt) {
+        if (transactionId.length() > MAX_TRANSACTION_ID_LENGTH) {
+            throw new IllegalArgumentException("transactionId too long : " + transactionId);
+        }
+        this.sequence = sequence;
+        this.transactionType = transactionType;
+        this.accountNumber = accountNumber;
+        this.amount = amount;
+        this.balanceSnapshot = balanceSnapshot;
+        this.transactionId = transactionId;
+        this.transactedAt = transactedAt.truncatedTo(ChronoUnit.MILLIS); //저장 정밀도에 맞춤
+    }
+
+    byte[] encode() {
+        byte[] bytes = new byte[SIZE];
+        byte[] id = transactionId.getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        buffer.putLong(0, sequence);
+        buffer.put(8, (byte) (transactionType.ordinal() + 1));
+        buffer.put(9, (byte) id.length);
+        buffer.putLong(16, Long.parseLong(accountNumber));
+        buffer.putLong(24, amount);
+        buffer.putLong(32, balanceSnapshot);
+        buffer.putLong(40, transactedAt.toInstant(ZoneOffset.UTC).toEpochMilli());
+        buffer.put(48, id);
+        buffer.putInt(CRC_OFFSET, crc(bytes));
+        return bytes;
+    }
+
+    /**
+     * 빈 자리, 쓰다 만 자리(crc 불일치), 다른 sequence 면 null
+     */
+    static JournalRecord decode(byte[] bytes, long expectedSequence) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int type = buffer.get(8);
+        if (type == 0 || buffer.getInt(CRC_OFFSET) != crc(bytes)
+                || buffer.getLong(0) != expectedSequence) {
+            return null;
+        }
+        byte[] id = new byte[buffer.get(9)];
+        buffer.get(48, id);
+        return new JournalRecord(
+                expectedSequence,
+                TYPES[type - 1],
+                String.valueOf(buffer.getLong(16)),
+                buffer.getLong(24),
+                buffer.getLong(32),
+                new String(id, StandardCharsets.US_ASCII),
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(buffer.getLong(40)), ZoneOffset.UTC));
+    }
+
+    private static int crc(byte[] bytes) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(bytes, 0, CRC_OFFSET);
+        return (int) crc32.getValue();
+    }
+
+    TransactionDto toDto() {
+        return TransactionDto.builder()
+                .accountNumber(accountNumber)
+                .transactionType(transactionType)
+                .transactionResultType(S)
+                .amount(amount)
+                .balanceSnapshot(balanceSnapshot)
+                .transactionId(transactionId)
+                .transactedAt(transactedAt)
+                .build();
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.account.service;
+
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.TransactionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 존재하는 거래 ID, 계좌번호 bloom filter
+ * 없는 ID 로 반복해서 들어오는 조회/사용/취소를 DB 조회 없이 바로 NOT_FOUND 로 끝낸다.
+ * 시작할 때 DB 에서 채우고 이후에는 ID 를 만들 때 넣는다. 다 채우기 전에는 거르지 않는다.
+ * 서버마다 따로 들고 있으므로 거래와 계좌가 모두 이 서버에서 만들어질 때(서버 한 대)만 켠다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "account.known-id-filter.enabled", havingValue = "true")
+public class KnownIdFilter implements InitializingBean, DisposableBean {
+    private static final long RETRY_MILLIS = 1000L;
+
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final BloomFilter transactionIds;
+    private final BloomFilter accountNumbers;
+    private final Counter transactionRejectedCounter;
+    private final Counter accountRejectedCounter;
+    private final Thread loader;
+
+    private volatile boolean ready;
+
+    public KnownIdFilter(
+            AccountRepository accountRepository,
+            TransactionRepository transactionRepository,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${account.known-id-filter.expected-transactions:10000000}") long expectedTransactions,
+            @Value("${account.known-id-filter.expected-accounts:1000000}") long expectedAccounts,
+            @Value("${account.known-id-filter.fpp:0.01}") double fpp) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.transactionIds = new BloomFilter(expectedTransactions, fpp);
+        this.accountNumbers = new BloomFilter(expectedAccounts, fpp);
+        this.transactionRejectedCounter = rejectedCounter(meterRegistry, "transaction");
+        this.accountRejectedCounter = rejectedCounter(meterRegistry, "account");
+        registerGauges(meterRegistry, "transaction", transactionIds);
+        registerGauges(meterRegistry, "account", accountNumbers);
+        this.loader = new Thread(this::load, "known-id-loader");
+        this.loader.setDaemon(true);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        loader.start();
+    }
+
+    public void addTransactionId(String transactionId) {
+        transactionIds.put(transactionId);
+    }
+
+    public void addAccountNumber(String accountNumber) {
+        accountNumbers.put(accountNumber);
+    }
+
+    /**
+     * false 면 DB 에 확실히 없는 거래
+     */
+    public boolean mightContainTransactionId(String transactionId) {
+        if (!ready || transactionIds.mightContain(transactionId)) {
+            return true;
+        }
+        transactionRejectedCounter.increment();
+        return false;
+    }
+
+    /**
+     * false 면 DB 에 확실히 없는 계좌
+     */
+    public boolean mightContainAccountNumber(String accountNumber) {
+        if (!ready || accountNumbers.mightContain(accountNumber)) {
+            return true;
+        }
+        accountRejectedCounter.increment();
+        return false;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    //채우는 동안 새로 만들어진 ID 는 add* 로 들어오므로 빠지는 것이 없다.
+    private void load() {
+        while (!ready) {
+            try {
+                long started = System.currentTimeMillis();
+                long accounts = transactionTemplate.execute(status ->
+                        putAll(accountRepository.streamAllAccountNumbers(), accountNumbers));
+                long transactions = transactionTemplate.execute(status ->
+                        putAll(transactionRepository.streamAllTransactionIds(), transactionIds));
+                ready = true;
+                log.info("Loaded {} account numbers and {} transaction ids in {}ms",
+                        accounts, transactions, System.currentTimeMillis() - started);
+            } catch (RuntimeException e) {
+                log.error("Failed to load known ids, retrying", e);
+                try {
+                    TimeUnit.MILLISECONDS.sleep(RETRY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private static long putAll(Stream<String> ids, BloomFilter bloomFilter) {
+        try (ids) {
+            long count = 0;
+            for (String id : (Iterable<String>) ids::iterator) {
+                bloomFilter.put(id);
+                count++;
+            }
+            return count;
+        }
+    }
+
+    private static Counter rejectedCounter(MeterRegistry meterRegistry, String type) {
+        return Counter.builder("account.known_id.rejected")
+                .tag("type", type)
+                .register(meterRegistry);
+    }
+
+    private static void registerGauges(MeterRegistry meterRegistry, String type, BloomFilter bloomFilter) {
+        Gauge.builder("account.known_id.false_positive_rate", bloomFilter, BloomFilter::expectedFpp)
+                .tag("type", type)
+                .register(meterRegistry);
+        Gauge.builder("account.known_id.bytes", bloomFilter, BloomFilter::bytes)
+                .tag("type", type)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        loader.interrupt();
+        loader.join(TimeUnit.SECONDS.toMillis(10));
+    }
+}
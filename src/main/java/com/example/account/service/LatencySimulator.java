@@ -0,0 +1,44 @@
+package com.example.account.service;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 외부 결제망 같은 느린 downstream 을 흉내내는 지연 단계 (기본 off)
+ * 요청 스레드를 재우지 않고 timer 로 기다린 뒤 worker 스레드에서 다음 단계를 이어간다.
+ * lock 을 잡기 전에 기다리므로 지연 시간 동안 계좌 lock 도 잡고 있지 않는다.
+ */
+@Component
+public class LatencySimulator implements DisposableBean {
+    private final long delayMillis;
+    private final ExecutorService workers;
+
+    public LatencySimulator(
+            @Value("${account.latency.enabled:false}") boolean enabled,
+            @Value("${account.latency.millis:3000}") long delayMillis,
+            @Value("${account.latency.workers:16}") int workerCount) {
+        this.delayMillis = enabled ? delayMillis : 0L;
+        this.workers = enabled ? Executors.newFixedThreadPool(workerCount) : null;
+    }
+
+    public CompletableFuture<Void> delay() {
+        if (workers == null || delayMillis <= 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.runAsync(() -> { },
+                CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS, workers));
+    }
+
+    @Override
+    public void destroy() {
+        if (workers != null) {
+            workers.shutdown();
+        }
+    }
+}
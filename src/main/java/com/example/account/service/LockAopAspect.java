@@ -1,34 +1,49 @@
 package com.example.account.service;
 
-import com.example.account.dto.UseBalance;
+import com.example.account.aop.AccountLockIdInterface;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.stream.Collectors;
+
 @Aspect
 @Component
+@ConditionalOnProperty(name = "account.concurrency.mode",
+        havingValue = "redisson", matchIfMissing = true)
 @Slf4j
 @RequiredArgsConstructor
 public class LockAopAspect {
     private final LockService lockService;
 
-    @Around("@annotation(com.example.account.aop.AccountLock) && args(request)")
+    @Around("@annotation(com.example.account.aop.AccountLock) && args(request, ..)")
     public Object aroundMethod(
             ProceedingJoinPoint pjp,
-            UseBalance.Request request
+            AccountLockIdInterface request
     ) throws Throwable {
-        //lock 시도
-        lockService.lock(request.getAccountNumber());
+        //여러 계좌는 항상 계좌번호 순서로 잡아서 서로 기다리며 멈추지 않게 함
+        List<String> accountNumbers = request.getLockAccountNumbers().stream()
+                .distinct()
+                .sorted()
+                .collect(Collectors.toList());
+        int locked = 0;
         try{
-            // before
+            //lock 시도
+            for (String accountNumber : accountNumbers) {
+                lockService.lock(accountNumber);
+                locked++;
+            }
             return pjp.proceed();
-            //after
         }finally {
-            //lock 해지
-            lockService.unlock(request.getAccountNumber());
+            //잡은 lock 만 역순으로 해지
+            for (int i = locked - 1; i >= 0; i--) {
+                lockService.unlock(accountNumbers.get(i));
+            }
         }
     }
 }
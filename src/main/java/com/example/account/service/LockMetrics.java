@@ -0,0 +1,101 @@
+package com.example.account.service;
+
+import com.example.account.dto.LockHotKey;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * lock 대기 시간, 보유 시간, 실패 횟수와 hot key 를 모은다.
+ * lease / wait 시간을 정할 때 참고
+ * hot key 는 요청 경로에 전역 monitor 를 두지 않도록 sample-rate 번에 한 번만 세고,
+ * key 별로 정해진 stripe 의 sketch 에 나눠 세서 top 에서 합친다. (count 는 sample-rate 를 곱한 추정치)
+ */
+@Component
+public class LockMetrics {
+    private static final String LOCK_KEY_PREFIX = "ACLK:";
+    private static final int HOT_KEY_STRIPES = 16;
+
+    private final Timer acquireSuccessTimer;
+    private final Timer acquireFailTimer;
+    private final Timer holdTimer;
+    private final Counter timeoutCounter;
+    private final Counter redisErrorCounter;
+    private final SpaceSavingSketch[] hotKeys;
+    private final int hotKeySampleRate;
+
+    public LockMetrics(MeterRegistry meterRegistry,
+                       @Value("${account.lock.hot-key-capacity:256}") int hotKeyCapacity,
+                       @Value("${account.lock.hot-key-sample-rate:16}") int hotKeySampleRate) {
+        this.acquireSuccessTimer = acquireTimer(meterRegistry, "success");
+        this.acquireFailTimer = acquireTimer(meterRegistry, "fail");
+        this.holdTimer = Timer.builder("account.lock.hold")
+                .publishPercentiles(0.5, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.timeoutCounter = Counter.builder("account.lock.timeout")
+                .register(meterRegistry);
+        this.redisErrorCounter = Counter.builder("account.lock.redis.error")
+                .register(meterRegistry);
+        this.hotKeys = new SpaceSavingSketch[HOT_KEY_STRIPES];
+        for (int i = 0; i < HOT_KEY_STRIPES; i++) {
+            hotKeys[i] = new SpaceSavingSketch(Math.max(1, hotKeyCapacity / HOT_KEY_STRIPES));
+        }
+        this.hotKeySampleRate = Math.max(1, hotKeySampleRate);
+    }
+
+    private static Timer acquireTimer(MeterRegistry meterRegistry, String result) {
+        return Timer.builder("account.lock.acquire")
+                .tag("result", result)
+                .publishPercentiles(0.5, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    public void recordAttempt(String accountNumber) {
+        if (hotKeySampleRate > 1
+                && ThreadLocalRandom.current().nextInt(hotKeySampleRate) != 0) {
+            return;
+        }
+        hotKeys[Math.floorMod(accountNumber.hashCode(), HOT_KEY_STRIPES)]
+                .offer(LOCK_KEY_PREFIX + accountNumber);
+    }
+
+    public void recordAcquire(long nanos, boolean success) {
+        (success ? acquireSuccessTimer : acquireFailTimer).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordHold(long nanos) {
+        holdTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordTimeout() {
+        timeoutCounter.increment();
+    }
+
+    public void recordRedisError() {
+        redisErrorCounter.increment();
+    }
+
+    //한 key 는 항상 같은 stripe 에서 세므로 stripe 별 top 을 합치기만 하면 된다.
+    public List<LockHotKey> getHotKeys(int n) {
+        return Arrays.stream(hotKeys)
+                .flatMap(sketch -> sketch.top(n).stream())
+                .sorted((a, b) -> Long.compare(b.getCount(), a.getCount()))
+                .limit(n)
+                .map(hotKey -> LockHotKey.builder()
+                        .key(hotKey.getKey())
+                        .count(hotKey.getCount() * hotKeySampleRate)
+                        .error(hotKey.getError() * hotKeySampleRate)
+                        .build())
+                .collect(Collectors.toList());
+    }
+}
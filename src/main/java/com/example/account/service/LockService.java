@@ -3,42 +3,54 @@ package com.example.account.service;
 import com.example.account.exception.AccountException;
 import com.example.account.type.ErrorCode;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
-import org.redisson.api.RLock;
-import org.redisson.api.RedissonClient;
 import org.springframework.stereotype.Service;
 
-import java.util.concurrent.TimeUnit;
+import java.util.HashMap;
+import java.util.Map;
 
+/**
+ * 계좌 lock 진입점
+ * 실제 방식은 account.lock.strategy 로 선택된 LockStrategy 가 결정하고
+ * 여기서는 대기 시간, 보유 시간, 실패를 LockMetrics 에 남긴다.
+ */
 @Service
-@Slf4j
 @RequiredArgsConstructor
 public class LockService {
-    private final RedissonClient redissonClient;
+    private final LockStrategy lockStrategy;
+    private final LockMetrics lockMetrics;
 
-    public void lock(String accountNumber){
-        RLock lock=redissonClient.getLock(getLockKey(accountNumber));
-        log.debug("Trying lock for accountNumber : {}",accountNumber);
+    private final ThreadLocal<Map<String, Long>> acquiredAt =
+            ThreadLocal.withInitial(HashMap::new);
 
-        try{
-            boolean isLock=lock.tryLock(1,15, TimeUnit.SECONDS); //1초동안 lock 찾아보고 3초동안 lock을 가지고 잇기
-            if(!isLock){
-                log.error("======= Lock acquisition failed=======");
-                throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+    public void lock(String accountNumber){
+        lockMetrics.recordAttempt(accountNumber);
+        long startedAt = System.nanoTime();
+        try {
+            lockStrategy.lock(accountNumber);
+        } catch (AccountException e) {
+            lockMetrics.recordAcquire(System.nanoTime() - startedAt, false);
+            if (e.getErrorCode() == ErrorCode.ACCOUNT_TRANSACTION_LOCK) {
+                lockMetrics.recordTimeout();
             }
-        }catch (AccountException e){
             throw e;
         }
-        catch (Exception e){
-            log.error("Redis lock failed");
-        }
-
+        long now = System.nanoTime();
+        lockMetrics.recordAcquire(now - startedAt, true);
+        acquiredAt.get().put(accountNumber, now);
     }
+
     public void unlock(String accountNumber){
-        log.debug("Unlock for accountNumber : {} ",accountNumber);
-        redissonClient.getLock(getLockKey(accountNumber)).unlock();
-    }
-    private static String getLockKey(String accountNumber) {
-        return "ACLK:" + accountNumber;
+        try {
+            lockStrategy.unlock(accountNumber);
+        } finally {
+            Map<String, Long> locked = acquiredAt.get();
+            Long lockedAt = locked.remove(accountNumber);
+            if (locked.isEmpty()) {
+                acquiredAt.remove();
+            }
+            if (lockedAt != null) {
+                lockMetrics.recordHold(System.nanoTime() - lockedAt);
+            }
+        }
     }
 }
@@ -0,0 +1,11 @@
+package com.example.account.service;
+
+/**
+ * 계좌 lock 구현 방식
+ * account.lock.strategy 로 하나를 고른다. (redisson | db | in-process)
+ */
+public interface LockStrategy {
+    void lock(String accountNumber);
+
+    void unlock(String accountNumber);
+}
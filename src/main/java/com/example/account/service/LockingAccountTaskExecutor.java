@@ -0,0 +1,25 @@
+package com.example.account.service;
+
+import com.example.account.aop.AccountLock;
+import com.example.account.aop.AccountLockIdInterface;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * 요청 스레드에서 바로 실행한다.
+ * 동시성 제어는 @AccountLock 에 걸린 aspect (redisson, optimistic) 또는 atomic UPDATE 가 맡는다.
+ */
+@Component
+@ConditionalOnExpression("'${account.concurrency.mode:redisson}' != 'lane'"
+        + " and '${account.concurrency.mode:redisson}' != 'group-commit'")
+public class LockingAccountTaskExecutor implements AccountTaskExecutor {
+
+    @Override
+    @AccountLock
+    public <T> CompletableFuture<T> submit(AccountLockIdInterface request, Supplier<T> task) {
+        return CompletableFuture.completedFuture(task.get());
+    }
+}
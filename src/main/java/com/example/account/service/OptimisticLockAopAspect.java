@@ -0,0 +1,27 @@
+package com.example.account.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * account.concurrency.mode=optimistic 일 때 LockAopAspect 대신 동작
+ * Redis lock 없이 진행하고 version 충돌이 나면 재시도만 한다.
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(name = "account.concurrency.mode", havingValue = "optimistic")
+@Slf4j
+@RequiredArgsConstructor
+public class OptimisticLockAopAspect {
+    private final OptimisticRetryExecutor optimisticRetryExecutor;
+
+    @Around("@annotation(com.example.account.aop.AccountLock)")
+    public Object aroundMethod(ProceedingJoinPoint pjp) throws Throwable {
+        return optimisticRetryExecutor.execute(pjp::proceed);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * optimistic 모드에서 @Version 충돌이 나면
+ * 지수 backoff + jitter 만큼 쉬고 정해진 횟수까지 다시 시도한다.
+ */
+@Slf4j
+@Component
+public class OptimisticRetryExecutor {
+    private static final int MAX_BACKOFF_SHIFT = 10;
+
+    private final int maxAttempts;
+    private final long backoffMillis;
+
+    public OptimisticRetryExecutor(
+            @Value("${account.concurrency.optimistic.max-attempts:5}") int maxAttempts,
+            @Value("${account.concurrency.optimistic.backoff-millis:10}") long backoffMillis) {
+        this.maxAttempts = maxAttempts;
+        this.backoffMillis = backoffMillis;
+    }
+
+    public <T> T execute(Attempt<T> attempt) throws Throwable {
+        for (int tried = 1; ; tried++) {
+            try {
+                return attempt.run();
+            } catch (OptimisticLockingFailureException e) {
+                if (tried >= maxAttempts) {
+                    log.error("======= Optimistic lock retry exhausted=======");
+                    throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+                }
+                log.debug("Optimistic lock conflict, retry : {}", tried);
+                sleepWithJitter(tried);
+            }
+        }
+    }
+
+    private void sleepWithJitter(int tried) throws InterruptedException {
+        long ceiling = backoffMillis << Math.min(tried - 1, MAX_BACKOFF_SHIFT);
+        Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1));
+    }
+
+    @FunctionalInterface
+    public interface Attempt<T> {
+        T run() throws Throwable;
+    }
+}
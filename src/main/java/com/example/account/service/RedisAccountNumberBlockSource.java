@@ -0,0 +1,23 @@
+package com.example.account.service;
+
+import lombok.RequiredArgsConstructor;
+import org.redisson.api.RedissonClient;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Redis INCRBY 로 블록을 예약한다.
+ */
+@Component
+@ConditionalOnProperty(name = "account.number.source", havingValue = "redis")
+@RequiredArgsConstructor
+public class RedisAccountNumberBlockSource implements AccountNumberBlockSource {
+    private static final String COUNTER_KEY = "ACNO:allocated";
+
+    private final RedissonClient redissonClient;
+
+    @Override
+    public long reserve(int blockSize) {
+        return redissonClient.getAtomicLong(COUNTER_KEY).addAndGet(blockSize) - blockSize;
+    }
+}
@@ -0,0 +1,233 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionType;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static com.example.account.type.TransactionResultType.S;
+
+/**
+ * account.concurrency.mode=redis-lua
+ * 계좌의 소유주, 상태, 잔액을 Redis hash 에 두고 Lua 스크립트 한 번으로 검증과 차감을 끝낸다.
+ * 같은 스크립트 안에서 거래 레코드를 queue(list) 와 pending(hash) 에 넣으므로
+ * 차감과 기록이 따로 놀지 않고, RedisTransactionWriter 가 queue 를 DB 에 반영한다.
+ * 계좌는 처음 쓰일 때 DB 에서 올리고 만료시키지 않는다.
+ * processing list 는 서버(account.transaction-id.node-id) 마다 따로 두어 writer 끼리 서로의 레코드를 건드리지 않는다.
+ * 서버마다 batch 커밋 순서가 다르므로 레코드에 계좌별 순번(seq)을 붙여 DB 잔액은 더 최근 거래로만 바뀌게 한다.
+ */
+@Component
+@ConditionalOnProperty(name = "account.concurrency.mode", havingValue = "redis-lua")
+public class RedisBalanceStore {
+    private static final String ACCOUNT_KEY_PREFIX = "ACBL:";
+    private static final String QUEUE_KEY = "ACTX:queue";
+    private static final String PROCESSING_KEY_PREFIX = "ACTX:processing:";
+    private static final String PENDING_KEY = "ACTX:pending";
+    private static final String MISS = "MISS";
+    private static final String OK = "OK";
+
+    private static final String APPLY_SCRIPT =
+            "if redis.call('exists', KEYS[1]) == 0 then return {'" + MISS + "'} end " +
+            "local account = redis.call('hmget', KEYS[1], 'owner', 'status', 'balance') " +
+            "if ARGV[1] == 'USE' then " +
+            "  if account[1] ~= ARGV[2] then return {'USER_ACCOUNT_UN_MATCH'} end " +
+            "  if account[2] ~= 'IN_USE' then return {'ACCOUNT_ALREADY_UNREGISTERED'} end " +
+            "  if tonumber(account[3]) < tonumber(ARGV[3]) then return {'AMOUNT_EXCEED_BALANCE'} end " +
+            "end " +
+            "redis.call('hincrby', KEYS[1], 'balance', ARGV[7]) " +
+            "local balance = redis.call('hget', KEYS[1], 'balance') " + //Lua 숫자 변환 없이 문자열 그대로
+            "local seq = redis.call('hincrby', KEYS[1], 'seq', 1) " +
+            "local record = table.concat({ARGV[1], ARGV[5], ARGV[3], balance, ARGV[4], ARGV[6], seq}, '|') " +
+            "redis.call('hset', KEYS[3], ARGV[4], record) " +
+            "redis.call('lpush', KEYS[2], record) " +
+            "return {'" + OK + "', record}";
+
+    private static final String LOAD_SCRIPT =
+            "if redis.call('exists', KEYS[1]) == 1 then return 0 end " +
+            "redis.call('hmset', KEYS[1], 'owner', ARGV[1], 'status', ARGV[2], 'balance', ARGV[3], 'seq', ARGV[4]) " +
+            "return 1";
+
+    //가장 오래된 레코드부터 최대 ARGV[1] 개를 processing 으로 옮긴다.
+    private static final String MOVE_SCRIPT =
+            "local items = redis.call('lrange', KEYS[1], -tonumber(ARGV[1]), -1) " +
+            "if #items > 0 then " +
+            "  redis.call('ltrim', KEYS[1], 0, -#items - 1) " +
+            "  redis.call('rpush', KEYS[2], unpack(items)) " +
+            "end " +
+            "return items";
+
+    //반영한 거래만 processing 에서 하나씩 지우고 pending 에서도 지운다. (pending 의 레코드가 processing 의 원소와 같음)
+    private static final String COMPLETE_SCRIPT =
+            "for i = 1, #ARGV do " +
+            "  local record = redis.call('hget', KEYS[2], ARGV[i]) " +
+            "  if record then " +
+            "    redis.call('lrem', KEYS[1], 1, record) " +
+            "    redis.call('hdel', KEYS[2], ARGV[i]) " +
+            "  end " +
+            "end " +
+            "return #ARGV";
+
+    private final RedissonClient redissonClient;
+    private final AccountRepository accountRepository;
+    private final String processingKey;
+    private final RScript script;
+    private final String applySha;
+    private final String loadSha;
+    private final String moveSha;
+    private final String completeSha;
+
+    public RedisBalanceStore(
+            RedissonClient redissonClient,
+            AccountRepository accountRepository,
+            @Value("${account.transaction-id.node-id:0}") long nodeId) {
+        this.redissonClient = redissonClient;
+        this.accountRepository = accountRepository;
+        this.processingKey = PROCESSING_KEY_PREFIX + nodeId;
+        this.script = redissonClient.getScript(StringCodec.INSTANCE);
+        this.applySha = script.scriptLoad(APPLY_SCRIPT);
+        this.loadSha = script.scriptLoad(LOAD_SCRIPT);
+        this.moveSha = script.scriptLoad(MOVE_SCRIPT);
+        this.completeSha = script.scriptLoad(COMPLETE_SCRIPT);
+    }
+
+    public TransactionDto debit(Long userId, String accountNumber, Long amount, String transactionId) {
+        return apply(TransactionType.USE, String.valueOf(userId), accountNumber, amount, transactionId);
+    }
+
+    public TransactionDto credit(String accountNumber, Long amount, String transactionId) {
+        return apply(TransactionType.CANCEL, "", accountNumber, amount, transactionId);
+    }
+
+    private TransactionDto apply(TransactionType transactionType, String userId,
+                                 String accountNumber, Long amount, String transactionId) {
+        List<Object> result = evalApply(transactionType, userId, accountNumber, amount, transactionId);
+        if (MISS.equals(result.get(0))) {
+            load(accountNumber);
+            result = evalApply(transactionType, userId, accountNumber, amount, transactionId);
+        }
+        if (!OK.equals(result.get(0))) {
+            throw new AccountException(ErrorCode.valueOf((String) result.get(0)));
+        }
+        return parse((String) result.get(1));
+    }
+
+    private List<Object> evalApply(TransactionType transactionType, String userId,
+                                   String accountNumber, Long amount, String transactionId) {
+        long transactedAt = LocalDateTime.now().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        return script.evalSha(RScript.Mode.READ_WRITE, applySha, RScript.ReturnType.MULTI,
+                Arrays.asList(accountKey(accountNumber), QUEUE_KEY, PENDING_KEY),
+                transactionType.name(), userId, String.valueOf(amount), transactionId,
+                accountNumber, String.valueOf(transactedAt),
+                String.valueOf(transactionType == TransactionType.USE ? -amount : amount));
+    }
+
+    private void load(String accountNumber) {
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+        script.evalSha(RScript.Mode.READ_WRITE, loadSha, RScript.ReturnType.INTEGER,
+                Collections.singletonList(accountKey(accountNumber)),
+                String.valueOf(account.getAccountUser().getId()),
+                account.getAccountStatus().name(), String.valueOf(account.getBalance()),
+                String.valueOf(account.getBalanceSequence() == null ? 0L : account.getBalanceSequence()));
+    }
+
+    public Optional<TransactionDto> findPending(String transactionId) {
+        String record = redissonClient.<String, String>getMap(PENDING_KEY, StringCodec.INSTANCE)
+                .get(transactionId);
+        return Optional.ofNullable(record).map(RedisBalanceStore::parse);
+    }
+
+    /**
+     * 올라와 있지 않은 계좌면 null (DB 잔액이 최신)
+     */
+    public Long balanceOf(String accountNumber) {
+        String balance = redissonClient.<String, String>getMap(accountKey(accountNumber), StringCodec.INSTANCE)
+                .get("balance");
+        return balance == null ? null : Long.valueOf(balance);
+    }
+
+    public void unregister(String accountNumber) {
+        redissonClient.<String, String>getMap(accountKey(accountNumber), StringCodec.INSTANCE)
+                .replace("status", "UNREGISTERED");
+    }
+
+    /**
+     * 이 서버가 이전에 반영하다 멈춘 레코드가 있으면 그것부터, 없으면 queue 에서 새로 옮겨 온다.
+     * lpush 로 쌓였으므로 뒤집어서 오래된 거래부터 돌려준다.
+     */
+    List<Queued> nextBatch(int max, boolean recovering) {
+        List<Object> records = recovering
+                ? redissonClient.<Object>getList(processingKey, StringCodec.INSTANCE).readAll()
+                : script.evalSha(RScript.Mode.READ_WRITE, moveSha, RScript.ReturnType.MULTI,
+                Arrays.asList(QUEUE_KEY, processingKey), String.valueOf(max));
+        List<Queued> transactions = records.stream()
+                .map(record -> new Queued(parse((String) record), sequence((String) record)))
+                .collect(Collectors.toList());
+        Collections.reverse(transactions);
+        return transactions;
+    }
+
+    void completed(List<Queued> transactions) {
+        script.evalSha(RScript.Mode.READ_WRITE, completeSha, RScript.ReturnType.INTEGER,
+                Arrays.asList(processingKey, PENDING_KEY),
+                transactions.stream()
+                        .map(queued -> queued.getTransaction().getTransactionId())
+                        .toArray());
+    }
+
+    private static String accountKey(String accountNumber) {
+        return ACCOUNT_KEY_PREFIX + accountNumber;
+    }
+
+    //type|accountNumber|amount|balance|transactionId|transactedAt(epoch millis)|seq
+    static TransactionDto parse(String record) {
+        String[] fields = record.split("\\|");
+        return TransactionDto.builder()
+                .transactionType(TransactionType.valueOf(fields[0]))
+                .accountNumber(fields[1])
+                .amount(Long.valueOf(fields[2]))
+                .balanceSnapshot(Long.valueOf(fields[3]))
+                .transactionId(fields[4])
+                .transactedAt(LocalDateTime.ofInstant(
+                        Instant.ofEpochMilli(Long.parseLong(fields[5])), ZoneId.systemDefault())
+                        .truncatedTo(ChronoUnit.MILLIS))
+                .transactionResultType(S)
+                .build();
+    }
+
+    //seq 가 없는 이전 형식의 레코드는 0 (잔액을 덮어쓰지 않음)
+    private static long sequence(String record) {
+        String[] fields = record.split("\\|");
+        return fields.length > 6 ? Long.parseLong(fields[6]) : 0L;
+    }
+
+    /**
+     * DB 에 반영할 거래와 그 거래의 계좌별 순번
+     */
+    @Getter
+    @RequiredArgsConstructor
+    static final class Queued {
+        private final TransactionDto transaction;
+        private final long balanceSequence;
+    }
+}
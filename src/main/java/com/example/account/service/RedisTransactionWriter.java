@@ -0,0 +1,162 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.Transaction;
+import com.example.account.dto.TransactionDto;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * RedisBalanceStore 의 거래 queue 를 batch 단위로 transaction / account 테이블에 반영한다.
+ * 옮겨 온 레코드는 DB 커밋 후에 processing 에서 지우므로, 중간에 죽으면 다음 시작 때 다시 반영한다.
+ * 다시 반영할 때는 이미 들어간 transactionId 를 건너뛴다.
+ * 다른 서버의 writer 가 더 최근 batch 를 먼저 커밋했을 수 있으므로 잔액은 계좌별 순번이 더 클 때만 덮어쓴다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "account.concurrency.mode", havingValue = "redis-lua")
+public class RedisTransactionWriter implements InitializingBean, DisposableBean {
+    private static final long IDLE_MILLIS = 10L;
+    private static final long RETRY_MILLIS = 1000L;
+
+    private final RedisBalanceStore redisBalanceStore;
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Thread writer;
+
+    @Autowired(required = false) //account.known-id-filter.enabled=true 일 때만 있음, 재시작 전에 쌓인 거래도 넣는다
+    private KnownIdFilter knownIdFilter;
+
+    private volatile boolean running = true;
+    private boolean recovering = true;
+
+    public RedisTransactionWriter(
+            RedisBalanceStore redisBalanceStore,
+            AccountRepository accountRepository,
+            TransactionRepository transactionRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${account.redis-lua.writer-batch-size:500}") int batchSize) {
+        this.redisBalanceStore = redisBalanceStore;
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.writer = new Thread(this::writeLoop, "redis-transaction-writer");
+        this.writer.setDaemon(true);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        writer.start();
+    }
+
+    private void writeLoop() {
+        while (running) {
+            try {
+                if (writeNext() == 0) {
+                    TimeUnit.MILLISECONDS.sleep(IDLE_MILLIS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Failed to write queued transactions", e);
+                recovering = true;
+                try {
+                    TimeUnit.MILLISECONDS.sleep(RETRY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    synchronized int writeNext() {
+        List<RedisBalanceStore.Queued> records = redisBalanceStore.nextBatch(batchSize, recovering);
+        boolean deduplicate = recovering;
+        recovering = false;
+        if (records.isEmpty()) {
+            return 0;
+        }
+        transactionTemplate.executeWithoutResult(status -> write(records, deduplicate));
+        redisBalanceStore.completed(records);
+        return records.size();
+    }
+
+    private void write(List<RedisBalanceStore.Queued> queued, boolean deduplicate) {
+        List<TransactionDto> records = queued.stream()
+                .map(RedisBalanceStore.Queued::getTransaction)
+                .collect(Collectors.toList());
+        Set<String> written = !deduplicate ? Set.of() :
+                transactionRepository.findByTransactionIdIn(records.stream()
+                                .map(TransactionDto::getTransactionId)
+                                .collect(Collectors.toList()))
+                        .stream()
+                        .map(Transaction::getTransactionId)
+                        .collect(Collectors.toSet());
+        Map<String, Account> accounts = accountRepository.findByAccountNumberIn(
+                        records.stream()
+                                .map(TransactionDto::getAccountNumber)
+                                .distinct()
+                                .collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(Account::getAccountNumber, Function.identity()));
+
+        List<Transaction> transactions = new ArrayList<>(records.size());
+        Map<String, RedisBalanceStore.Queued> latest = new HashMap<>();
+        for (RedisBalanceStore.Queued entry : queued) {
+            TransactionDto record = entry.getTransaction();
+            Account account = accounts.get(record.getAccountNumber());
+            if (account == null || written.contains(record.getTransactionId())) {
+                continue;
+            }
+            latest.merge(record.getAccountNumber(), entry, (previous, next) ->
+                    previous.getBalanceSequence() >= next.getBalanceSequence() ? previous : next);
+            transactions.add(Transaction.builder()
+                    .transactionType(record.getTransactionType())
+                    .transactionResultType(record.getTransactionResultType())
+                    .account(account)
+                    .amount(record.getAmount())
+                    .balanceSnapshot(record.getBalanceSnapshot())
+                    .transactionId(record.getTransactionId())
+                    .transactedAt(record.getTransactedAt())
+                    .build());
+        }
+        if (knownIdFilter != null) {
+            transactions.forEach(transaction -> knownIdFilter.addTransactionId(transaction.getTransactionId()));
+        }
+        transactionRepository.saveAll(transactions);
+        latest.forEach((accountNumber, entry) -> accountRepository.advanceBalance(accountNumber,
+                entry.getTransaction().getBalanceSnapshot(), entry.getBalanceSequence()));
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+        while (writeNext() > 0) {
+            //종료 전에 queue 에 남은 거래를 모두 반영
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 계좌 lock 은 2단계로 잡는다.
+ * 1. 같은 서버 안의 경쟁은 로컬 striped lock 에서 먼저 줄을 세우고
+ * 2. 로컬 lock 을 잡은 스레드 하나만 Redis lock 을 시도한다.
+ * 서버당 Redis 에 접근하는 대기자는 계좌마다 한 명뿐이다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "account.lock.strategy",
+        havingValue = "redisson", matchIfMissing = true)
+@RequiredArgsConstructor
+public class RedissonLockStrategy implements LockStrategy {
+    private static final int LOCAL_LOCK_STRIPES = 1024;
+    private static final long WAIT_TIME_MILLIS = 1000L;
+    private static final long LEASE_TIME_MILLIS = 15000L;
+
+    private final RedissonClient redissonClient;
+    private final LockMetrics lockMetrics;
+    private final StripedLockTable localLocks = new StripedLockTable(LOCAL_LOCK_STRIPES);
+
+    @Override
+    public void lock(String accountNumber){
+        log.debug("Trying lock for accountNumber : {}",accountNumber);
+
+        try{
+            long startedAt = System.nanoTime();
+            if(!localLocks.tryLock(accountNumber, WAIT_TIME_MILLIS, TimeUnit.MILLISECONDS)){
+                log.error("======= Local lock acquisition failed=======");
+                throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+            }
+
+            long remainWaitTime = WAIT_TIME_MILLIS
+                    - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+            RLock lock=redissonClient.getLock(getLockKey(accountNumber));
+            boolean isLock=lock.tryLock(Math.max(remainWaitTime, 0L),
+                    LEASE_TIME_MILLIS, TimeUnit.MILLISECONDS); //남은 대기시간 동안 lock 찾아보고 15초동안 lock을 가지고 잇기
+            if(!isLock){
+                localLocks.unlock(accountNumber);
+                log.error("======= Lock acquisition failed=======");
+                throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+            }
+        }catch (AccountException e){
+            throw e;
+        }
+        catch (Exception e){
+            lockMetrics.recordRedisError();
+            log.error("Redis lock failed for accountNumber : {}", accountNumber, e);
+        }
+
+    }
+
+    @Override
+    public void unlock(String accountNumber){
+        log.debug("Unlock for accountNumber : {} ",accountNumber);
+        try {
+            redissonClient.getLock(getLockKey(accountNumber)).unlock();
+        } finally {
+            localLocks.unlock(accountNumber);
+        }
+    }
+
+    private static String getLockKey(String accountNumber) {
+        return "ACLK:" + accountNumber;
+    }
+}
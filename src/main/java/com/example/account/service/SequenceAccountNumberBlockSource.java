@@ -0,0 +1,41 @@
+package com.example.account.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * DB sequence 로 블록을 예약한다.
+ * sequence 는 schema.sql 에서 block-size 만큼 증가하도록 만들고 값 자체를 블록 시작 offset 으로 쓴다.
+ * 서버마다 block-size 가 다르면 블록이 겹치므로 sequence increment 와 다르면 예약하지 않는다.
+ */
+@Component
+@ConditionalOnProperty(name = "account.number.source", havingValue = "db", matchIfMissing = true)
+public class SequenceAccountNumberBlockSource implements AccountNumberBlockSource {
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Long increment;
+
+    public SequenceAccountNumberBlockSource(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public long reserve(int blockSize) {
+        long sequenceIncrement = increment();
+        if (blockSize != sequenceIncrement) {
+            throw new IllegalStateException("account.number.block-size " + blockSize
+                    + " does not match account_number_block_seq increment " + sequenceIncrement);
+        }
+        return jdbcTemplate.queryForObject(
+                "select next value for account_number_block_seq", Long.class);
+    }
+
+    private long increment() {
+        if (increment == null) {
+            increment = jdbcTemplate.queryForObject("select increment from information_schema.sequences" +
+                    " where sequence_name = 'ACCOUNT_NUMBER_BLOCK_SEQ'", Long.class);
+        }
+        return increment;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.account.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 시간순 거래 id (snowflake)
+ * 41bit 밀리초 | 10bit node id | 12bit 순번 을 Crockford base32 13자리로 만든다.
+ * 길이가 고정이라 문자열 순서가 생성 순서와 같고, 서버마다 node id 가 다르면 겹치지 않는다.
+ * 같은 밀리초에 순번이 넘치거나 시계가 뒤로 가도 다음 밀리초를 당겨 써서 항상 증가한다.
+ */
+@Component
+@ConditionalOnProperty(name = "account.transaction-id.generator",
+        havingValue = "snowflake", matchIfMissing = true)
+public class SnowflakeTransactionIdGenerator implements TransactionIdGenerator {
+    private static final long EPOCH_MILLIS = 1672531200000L; // 2023-01-01T00:00:00Z
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final int ID_LENGTH = 13;
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    private final long nodeId;
+    private final AtomicLong lastTick = new AtomicLong(); // 밀리초 << SEQUENCE_BITS | 순번
+
+    public SnowflakeTransactionIdGenerator(
+            @Value("${account.transaction-id.node-id:0}") long nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("node-id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeId = nodeId;
+    }
+
+    @Override
+    public String generate() {
+        return encode(nextId());
+    }
+
+    long nextId() {
+        long tick;
+        while (true) {
+            long last = lastTick.get();
+            tick = Math.max((System.currentTimeMillis() - EPOCH_MILLIS) << SEQUENCE_BITS, last + 1);
+            if (lastTick.compareAndSet(last, tick)) {
+                break;
+            }
+        }
+        long millis = tick >>> SEQUENCE_BITS;
+        long sequence = tick & ((1L << SEQUENCE_BITS) - 1);
+        return (millis << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+    }
+
+    static String encode(long id) {
+        char[] chars = new char[ID_LENGTH];
+        for (int i = ID_LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) (id & 0x1F)];
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+}
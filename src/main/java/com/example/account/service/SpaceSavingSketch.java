@@ -0,0 +1,56 @@
+package com.example.account.service;
+
+import com.example.account.dto.LockHotKey;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Space-Saving heavy hitters
+ * 최대 capacity 개의 key 만 세고, 가득 차면 가장 작은 counter 를 새 key 에 넘겨준다.
+ * 메모리는 capacity 에 비례하고 상위 key 의 count 는 error 이내로 정확하다.
+ */
+public class SpaceSavingSketch {
+    private final int capacity;
+    private final Map<String, long[]> counters; // [count, error]
+
+    public SpaceSavingSketch(int capacity) {
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    public synchronized void offer(String key) {
+        long[] counter = counters.get(key);
+        if (counter != null) {
+            counter[0]++;
+            return;
+        }
+        if (counters.size() < capacity) {
+            counters.put(key, new long[]{1L, 0L});
+            return;
+        }
+
+        String minKey = null;
+        long minCount = Long.MAX_VALUE;
+        for (Map.Entry<String, long[]> entry : counters.entrySet()) {
+            if (entry.getValue()[0] < minCount) {
+                minKey = entry.getKey();
+                minCount = entry.getValue()[0];
+            }
+        }
+        counters.remove(minKey);
+        counters.put(key, new long[]{minCount + 1, minCount});
+    }
+
+    public synchronized List<LockHotKey> top(int n) {
+        return counters.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue()[0], a.getValue()[0]))
+                .limit(n)
+                .map(entry -> LockHotKey.builder()
+                        .key(entry.getKey())
+                        .count(entry.getValue()[0])
+                        .error(entry.getValue()[1])
+                        .build())
+                .collect(Collectors.toList());
+    }
+}
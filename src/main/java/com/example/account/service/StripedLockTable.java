@@ -0,0 +1,38 @@
+package com.example.account.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 계좌번호 hash 로 고르는 로컬 lock 묶음
+ * stripe 수는 2의 거듭제곱이어야 한다.
+ */
+class StripedLockTable {
+    private final ReentrantLock[] locks;
+
+    StripedLockTable(int stripes) {
+        if (Integer.bitCount(stripes) != 1) {
+            throw new IllegalArgumentException("stripes must be a power of two");
+        }
+        locks = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    boolean tryLock(String key, long timeout, TimeUnit unit) throws InterruptedException {
+        return getLock(key).tryLock(timeout, unit);
+    }
+
+    void unlock(String key) {
+        ReentrantLock lock = getLock(key);
+        if (lock.isHeldByCurrentThread()) {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock getLock(String key) {
+        int hash = key.hashCode();
+        return locks[(hash ^ (hash >>> 16)) & (locks.length - 1)];
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.account.service;
+
+import com.example.account.dto.TransactionDto;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * 거래 조회 캐시 (transactionId -> 거래)
+ * 저장된 거래는 바뀌지 않으므로 만료 없이 max-bytes 안에서 가장 오래 안 쓰인 것부터 내보낸다.
+ * 값은 바꿀 수 없는 형태로 들고 있다가 조회할 때마다 새 TransactionDto 로 돌려준다.
+ * 저장 시에는 커밋 후에 넣어 rollback 된 거래가 보이지 않게 한다.
+ */
+@Component
+public class TransactionDtoCache {
+    //객체 헤더, 필드, LinkedHashMap 엔트리를 합친 대략의 크기 (문자열 길이는 따로 더함)
+    private static final int ENTRY_OVERHEAD_BYTES = 240;
+
+    private final long maxBytes;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter evictionCounter;
+
+    private long usedBytes;
+
+    public TransactionDtoCache(
+            MeterRegistry meterRegistry,
+            @Value("${account.transaction-cache.max-bytes:16777216}") long maxBytes) {
+        this.maxBytes = maxBytes;
+        this.hitCounter = Counter.builder("account.transaction_cache.hit")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("account.transaction_cache.miss")
+                .register(meterRegistry);
+        this.evictionCounter = Counter.builder("account.transaction_cache.eviction")
+                .register(meterRegistry);
+        Gauge.builder("account.transaction_cache.bytes", this, TransactionDtoCache::usedBytes)
+                .register(meterRegistry);
+    }
+
+    public TransactionDto get(String transactionId) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(transactionId);
+        }
+        if (entry == null) {
+            missCounter.increment();
+            return null;
+        }
+        hitCounter.increment();
+        return entry.toDto();
+    }
+
+    public void put(TransactionDto transactionDto) {
+        Entry entry = new Entry(transactionDto);
+        if (entry.bytes > maxBytes) {
+            return;
+        }
+        synchronized (this) {
+            Entry previous = entries.put(transactionDto.getTransactionId(), entry);
+            usedBytes += entry.bytes - (previous == null ? 0 : previous.bytes);
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (usedBytes > maxBytes && eldest.hasNext()) {
+                usedBytes -= eldest.next().bytes;
+                eldest.remove();
+                evictionCounter.increment();
+            }
+        }
+    }
+
+    public void putAfterCommit(TransactionDto transactionDto) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            put(transactionDto);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                put(transactionDto);
+            }
+        });
+    }
+
+    synchronized long usedBytes() {
+        return usedBytes;
+    }
+
+    private static final class Entry {
+        private final String accountNumber;
+        private final TransactionType transactionType;
+        private final TransactionResultType transactionResultType;
+        private final Long amount;
+        private final Long balanceSnapshot;
+        private final String transactionId;
+        private final LocalDateTime transactedAt;
+        private final int bytes;
+
+        private Entry(TransactionDto dto) {
+            this.accountNumber = dto.getAccountNumber();
+            this.transactionType = dto.getTransactionType();
+            this.transactionResultType = dto.getTransactionResultType();
+            this.amount = dto.getAmount();
+            this.balanceSnapshot = dto.getBalanceSnapshot();
+            this.transactionId = dto.getTransactionId();
+            this.transactedAt = dto.getTransactedAt();
+            this.bytes = ENTRY_OVERHEAD_BYTES + 2 * (length(accountNumber) + length(transactionId));
+        }
+
+        TransactionDto toDto() {
+            return TransactionDto.builder()
+                    .accountNumber(accountNumber)
+                    .transactionType(transactionType)
+                    .transactionResultType(transactionResultType)
+                    .amount(amount)
+                    .balanceSnapshot(balanceSnapshot)
+                    .transactionId(transactionId)
+                    .transactedAt(transactedAt)
+                    .build();
+        }
+
+        private static int length(String value) {
+            return value == null ? 0 : value.length();
+        }
+    }
+}
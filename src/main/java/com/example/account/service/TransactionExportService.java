@@ -0,0 +1,63 @@
+package com.example.account.service;
+
+import com.example.account.aop.ReadOnlyTransactional;
+import com.example.account.dto.TransactionDto;
+import com.example.account.repository.TransactionRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * 대사용 거래 내역 export
+ * forward-only cursor 로 한 줄씩 읽어 바로 NDJSON 으로 쓰므로 건수와 상관없이 메모리가 일정하다.
+ * 엔티티 대신 TransactionDto 로 읽어 영속성 컨텍스트에도 쌓이지 않는다.
+ * 줄마다 flush 하지 않고 generator 버퍼가 차거나 FLUSH_EVERY 건마다 내보낸다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TransactionExportService {
+    private static final int FLUSH_EVERY = 1000;
+
+    private final TransactionRepository transactionRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * from 이상 to 미만 거래를 transactedAt, id 순으로 쓴다. accountNumber 가 null 이면 전체 계좌
+     * 반환값은 쓴 건수
+     */
+    @ReadOnlyTransactional
+    public long export(LocalDateTime from, LocalDateTime to, String accountNumber,
+                       OutputStream outputStream) throws IOException {
+        long written = 0;
+        ObjectWriter writer = objectMapper.writerFor(TransactionDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (Stream<TransactionDto> rows = transactionRepository.streamForExport(from, to, accountNumber);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setPrettyPrinter(new MinimalPrettyPrinter(""));
+            Iterator<TransactionDto> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                writer.writeValue(generator, iterator.next());
+                generator.writeRaw('\n');
+                if (++written % FLUSH_EVERY == 0) {
+                    generator.flush();
+                }
+            }
+            generator.flush();
+        }
+        log.info("Exported {} transactions from {} to {}", written, from, to);
+        return written;
+    }
+}
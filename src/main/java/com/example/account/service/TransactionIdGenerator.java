@@ -0,0 +1,9 @@
+package com.example.account.service;
+
+/**
+ * 거래 id 생성기
+ * account.transaction-id.generator 로 고른다. (snowflake | uuid)
+ */
+public interface TransactionIdGenerator {
+    String generate();
+}
@@ -0,0 +1,282 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.USE;
+
+/**
+ * account.journal.enabled=true 일 때 성공 거래를 먼저 남기는 write-ahead 저널
+ * 고정 길이 레코드를 memory-mapped segment 파일에 이어 쓰고, 디스크에 force 된 뒤 응답한다.
+ * DB 반영은 JournalProjector 가 뒤에서 하므로 그 전까지의 잔액과 거래는 여기서 조회한다.
+ * force 는 먼저 온 스레드가 그때까지 쓰인 레코드를 한 번에 내려서 동시 요청끼리 나눠 쓴다.
+ * 잔액 검증과 기록은 계좌 stripe lock 안에서 함께 하므로 lock 을 잡지 않는 동시성 모드와 써도 중복 차감이 없다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "account.journal.enabled", havingValue = "true")
+public class TransactionJournal implements DisposableBean {
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final int ACCOUNT_LOCK_STRIPES = 64;
+
+    private final Path directory;
+    private final int recordsPerSegment;
+    private final Map<Long, MappedByteBuffer> segments = new ConcurrentHashMap<>();
+    private final Object forceLock = new Object();
+
+    //아직 DB 에 반영되지 않은 거래, 그 거래가 있는 계좌의 최신 잔액 (반영이 끝나면 지움)
+    private final Map<String, JournalRecord> pendingByTransactionId = new ConcurrentHashMap<>();
+    private final Map<String, PendingBalance> balances = new ConcurrentHashMap<>();
+    private final Object[] accountLocks = new Object[ACCOUNT_LOCK_STRIPES];
+
+    private long nextSequence = -1;
+    private volatile long durableSequence = -1;
+
+    public TransactionJournal(
+            @Value("${account.journal.dir:./journal}") String directory,
+            @Value("${account.journal.segment-bytes:67108864}") int segmentBytes) {
+        this.directory = Paths.get(directory);
+        this.recordsPerSegment = segmentBytes / JournalRecord.SIZE;
+        for (int i = 0; i < ACCOUNT_LOCK_STRIPES; i++) {
+            accountLocks[i] = new Object();
+        }
+        try {
+            Files.createDirectories(this.directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * DB 에 반영된 다음 sequence 부터 끝까지 다시 읽어 메모리 상태를 복구한다.
+     * crc 가 맞지 않는 첫 레코드(쓰다 만 꼬리)에서 멈추고 그 자리부터 이어 쓴다.
+     */
+    public synchronized void recover(long fromSequence) {
+        deleteSegmentsBefore(segmentIndex(fromSequence));
+        long sequence = fromSequence;
+        JournalRecord record;
+        while ((record = readRecord(sequence)) != null) {
+            pendingByTransactionId.put(record.getTransactionId(), record);
+            balances.put(record.getAccountNumber(),
+                    new PendingBalance(record.getBalanceSnapshot(), record.getSequence()));
+            sequence++;
+        }
+        nextSequence = sequence;
+        durableSequence = sequence - 1;
+        log.info("Journal recovered {} records from sequence {}", sequence - fromSequence, fromSequence);
+    }
+
+    /**
+     * 저널 잔액(없으면 DB 잔액)에서 amount 를 차감한 기록을 남긴다. 잔액이 모자라면 AMOUNT_EXCEED_BALANCE
+     * dbBalance 는 저널에 잔액이 없을 때만 계좌 lock 안에서 읽으므로 반영이 끝난 최신 값이다.
+     */
+    public JournalRecord debit(String accountNumber, Long amount, Supplier<Long> dbBalance,
+                               String transactionId) {
+        return appendChecked(USE, accountNumber, amount, -amount, dbBalance, transactionId);
+    }
+
+    public JournalRecord credit(String accountNumber, Long amount, Supplier<Long> dbBalance,
+                                String transactionId) {
+        return appendChecked(CANCEL, accountNumber, amount, amount, dbBalance, transactionId);
+    }
+
+    private JournalRecord appendChecked(TransactionType transactionType, String accountNumber,
+                                        Long amount, long balanceDelta, Supplier<Long> dbBalance,
+                                        String transactionId) {
+        JournalRecord record;
+        synchronized (accountLock(accountNumber)) {
+            PendingBalance pending = balances.get(accountNumber);
+            long balance = pending != null ? pending.balance : dbBalance.get();
+            if (balance + balanceDelta < 0) {
+                throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+            }
+            record = write(transactionType, accountNumber, amount, balance + balanceDelta, transactionId);
+        }
+        awaitDurable(record.getSequence());
+        return record;
+    }
+
+    private synchronized JournalRecord write(TransactionType transactionType, String accountNumber,
+                                             Long amount, Long balanceSnapshot, String transactionId) {
+        if (nextSequence < 0) {
+            throw new IllegalStateException("Journal is not recovered yet");
+        }
+        JournalRecord record = new JournalRecord(nextSequence, transactionType, accountNumber,
+                amount, balanceSnapshot, transactionId, LocalDateTime.now());
+        if (offset(record.getSequence()) == 0 && record.getSequence() > 0) {
+            segment(segmentIndex(record.getSequence()) - 1).force(); //segment 를 넘어가기 전에 이전 segment 를 모두 내림
+        }
+        segment(segmentIndex(record.getSequence())).put(offset(record.getSequence()), record.encode());
+        nextSequence++;
+        pendingByTransactionId.put(transactionId, record);
+        balances.put(accountNumber, new PendingBalance(balanceSnapshot, record.getSequence()));
+        return record;
+    }
+
+    private void awaitDurable(long sequence) {
+        if (durableSequence >= sequence) {
+            return;
+        }
+        synchronized (forceLock) {
+            if (durableSequence >= sequence) {
+                return;
+            }
+            long written;
+            synchronized (this) {
+                written = nextSequence - 1;
+            }
+            segment(segmentIndex(written)).force();
+            durableSequence = written;
+        }
+    }
+
+    /**
+     * 반영 전 거래가 있는 계좌는 저널의 잔액, 없으면 DB 잔액 (조회용)
+     */
+    public Long balanceOf(Account account) {
+        return balanceOf(account.getAccountNumber(), account.getBalance());
+    }
+
+    public Long balanceOf(String accountNumber, Long dbBalance) {
+        PendingBalance pending = balances.get(accountNumber);
+        return pending != null ? pending.balance : dbBalance;
+    }
+
+    public Optional<JournalRecord> findPending(String transactionId) {
+        return Optional.ofNullable(pendingByTransactionId.get(transactionId));
+    }
+
+    /**
+     * fromSequence 부터 force 가 끝난 레코드를 최대 max 개 읽는다.
+     */
+    public List<JournalRecord> read(long fromSequence, int max) {
+        long until = Math.min(durableSequence, fromSequence + max - 1);
+        List<JournalRecord> records = new ArrayList<>();
+        for (long sequence = fromSequence; sequence <= until; sequence++) {
+            JournalRecord record = readRecord(sequence);
+            if (record == null) {
+                throw new IllegalStateException("Corrupted journal record at sequence " + sequence);
+            }
+            records.add(record);
+        }
+        return records;
+    }
+
+    /**
+     * DB 반영이 끝난(커밋된) 거래를 메모리에서 지우고 다 읽은 segment 파일을 지운다.
+     * 계좌 잔액은 그 뒤에 쓰인 거래가 없을 때만 지워 DB 잔액을 다시 읽게 한다.
+     */
+    public void projected(List<JournalRecord> records, long nextProjectedSequence) {
+        for (JournalRecord record : records) {
+            pendingByTransactionId.remove(record.getTransactionId());
+            synchronized (accountLock(record.getAccountNumber())) {
+                balances.computeIfPresent(record.getAccountNumber(), (accountNumber, pending) ->
+                        pending.sequence <= record.getSequence() ? null : pending);
+            }
+        }
+        if (!records.isEmpty()
+                && segmentIndex(records.get(0).getSequence()) < segmentIndex(nextProjectedSequence)) {
+            deleteSegmentsBefore(segmentIndex(nextProjectedSequence));
+        }
+    }
+
+    private JournalRecord readRecord(long sequence) {
+        long index = segmentIndex(sequence);
+        if (!segments.containsKey(index) && !Files.exists(segmentPath(index))) {
+            return null;
+        }
+        byte[] bytes = new byte[JournalRecord.SIZE];
+        segment(index).get(offset(sequence), bytes);
+        return JournalRecord.decode(bytes, sequence);
+    }
+
+    private MappedByteBuffer segment(long index) {
+        return segments.computeIfAbsent(index, i -> {
+            try (FileChannel channel = FileChannel.open(segmentPath(i),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                return channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                        (long) recordsPerSegment * JournalRecord.SIZE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private void deleteSegmentsBefore(long index) {
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .filter(path -> segmentIndexOf(path) < index)
+                    .forEach(path -> {
+                        segments.remove(segmentIndexOf(path));
+                        try {
+                            Files.deleteIfExists(path);
+                        } catch (IOException e) {
+                            log.warn("Failed to delete journal segment {}", path, e);
+                        }
+                    });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Object accountLock(String accountNumber) {
+        return accountLocks[Math.floorMod(accountNumber.hashCode(), ACCOUNT_LOCK_STRIPES)];
+    }
+
+    private long segmentIndex(long sequence) {
+        return sequence / recordsPerSegment;
+    }
+
+    private int offset(long sequence) {
+        return (int) (sequence % recordsPerSegment) * JournalRecord.SIZE;
+    }
+
+    private Path segmentPath(long index) {
+        return directory.resolve(String.format("%020d%s", index, SEGMENT_SUFFIX));
+    }
+
+    private static long segmentIndexOf(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    @Override
+    public void destroy() {
+        segments.values().forEach(MappedByteBuffer::force);
+    }
+
+    private static final class PendingBalance {
+        private final long balance;
+        private final long sequence;
+
+        private PendingBalance(long balance, long sequence) {
+            this.balance = balance;
+            this.sequence = sequence;
+        }
+    }
+}
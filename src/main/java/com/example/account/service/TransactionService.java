@@ -1,9 +1,14 @@
 package com.example.account.service;
 
+import com.example.account.aop.ReadOnlyTransactional;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
 import com.example.account.domain.Transaction;
+import com.example.account.dto.FailedTransaction;
 import com.example.account.dto.TransactionDto;
+import com.example.account.dto.TransactionHistory;
+import com.example.account.dto.Transfer;
+import com.example.account.dto.TransferDto;
 import com.example.account.exception.AccountException;
 import com.example.account.repository.AccountRepository;
 import com.example.account.repository.AccountUserRepository;
@@ -14,29 +19,76 @@ import com.example.account.type.TransactionResultType;
 import com.example.account.type.TransactionType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import javax.transaction.Transactional;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
-import java.util.Objects;
-import java.util.UUID;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static com.example.account.type.TransactionResultType.F;
 import static com.example.account.type.TransactionResultType.S;
 import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.TRANSFER_IN;
+import static com.example.account.type.TransactionType.TRANSFER_OUT;
 import static com.example.account.type.TransactionType.USE;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class TransactionService {
+    private static final String ATOMIC_MODE = "atomic";
+    private static final int MAX_HISTORY_SIZE = 100;
+
     private final TransactionRepository transactionRepository;
     private final AccountUserRepository accountUserRepository;
+    private final AccountUserCache accountUserCache;
     private final AccountRepository accountRepository;
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final TransactionDtoCache transactionDtoCache;
 
-    @Transactional
+    @Value("${account.concurrency.mode:redisson}")
+    private String concurrencyMode;
+
+    @Autowired(required = false) //account.journal.enabled=true 일 때만 있음
+    private TransactionJournal transactionJournal;
+
+    @Autowired(required = false) //account.balance-engine.enabled=true 일 때만 있음
+    private BalanceEngine balanceEngine;
+
+    @Autowired(required = false) //account.concurrency.mode=redis-lua 일 때만 있음
+    private RedisBalanceStore redisBalanceStore;
+
+    @Autowired(required = false) //account.known-id-filter.enabled=true 일 때만 있음
+    private KnownIdFilter knownIdFilter;
+
+    @Transactional(dontRollbackOn = AccountException.class) //검증 실패는 쓰기 전에 발생, db lock 트랜잭션을 rollback-only 로 만들지 않음
     public TransactionDto useBalance(Long userId, String accountNumber, Long amount){
-        AccountUser user=accountUserRepository.findById(userId)
+        if(knownIdFilter != null && !knownIdFilter.mightContainAccountNumber(accountNumber)){
+            accountUserCache.findById(userId) //기존과 같은 순서로 에러를 구분
+                    .orElseThrow(()->new AccountException(ErrorCode.USER_NOT_FOUND));
+            throw new AccountException(ErrorCode.ACCOUNT_NOT_FOUND);
+        }
+        if(redisBalanceStore != null){
+            return useBalanceInRedis(userId, accountNumber, amount);
+        }
+        if(balanceEngine != null){
+            return useBalanceInMemory(userId, accountNumber, amount);
+        }
+        if(transactionJournal != null){
+            return useBalanceJournaled(userId, accountNumber, amount);
+        }
+        if(ATOMIC_MODE.equals(concurrencyMode)){
+            return useBalanceAtomically(userId, accountNumber, amount);
+        }
+        AccountUser user=accountUserCache.findById(userId)
                 .orElseThrow(()->new AccountException(ErrorCode.USER_NOT_FOUND));
         Account account= accountRepository.findByAccountNumber(accountNumber)
                         .orElseThrow(()->new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
@@ -49,86 +101,467 @@ public class TransactionService {
         return TransactionDto.fromEntity(saveAndGetTransaction(USE,S,amount, account));
     }
 
+    /**
+     * 검증과 차감은 BalanceEngine 에서 DB 조회 없이 하고 거래 내역만 insert 한다.
+     * 계좌가 없거나 소유주가 다를 때만 사용자를 조회해서 기존과 같은 순서로 에러를 구분한다.
+     */
+    private TransactionDto useBalanceInMemory(Long userId, String accountNumber, Long amount){
+        BalanceEngine.Change change;
+        try {
+            change=balanceEngine.debit(userId, accountNumber, amount);
+        } catch (AccountException e){
+            if(e.getErrorCode()==ErrorCode.ACCOUNT_NOT_FOUND
+                    || e.getErrorCode()==ErrorCode.USER_ACCOUNT_UN_MATCH){
+                accountUserCache.findById(userId)
+                        .orElseThrow(()->new AccountException(ErrorCode.USER_NOT_FOUND));
+            }
+            throw e;
+        }
+
+        return saveInMemoryTransaction(USE, amount, accountNumber,
+                accountRepository.getReferenceById(change.getAccountId()), change);
+    }
+
+    /**
+     * 검증, 차감, 거래 기록을 Lua 스크립트 한 번으로 끝내고 DB 반영은 RedisTransactionWriter 가 한다.
+     */
+    private TransactionDto useBalanceInRedis(Long userId, String accountNumber, Long amount){
+        try {
+            return redisBalanceStore.debit(userId, accountNumber, amount,
+                    newTransactionId());
+        } catch (AccountException e){
+            if(e.getErrorCode()==ErrorCode.ACCOUNT_NOT_FOUND
+                    || e.getErrorCode()==ErrorCode.USER_ACCOUNT_UN_MATCH){
+                accountUserCache.findById(userId)
+                        .orElseThrow(()->new AccountException(ErrorCode.USER_NOT_FOUND));
+            }
+            throw e;
+        }
+    }
+
+    private TransactionDto saveInMemoryTransaction(TransactionType transactionType, Long amount,
+                                                   String accountNumber, Account account,
+                                                   BalanceEngine.Change change){
+        Transaction transaction=transactionRepository.save(
+                buildTransaction(transactionType, S, amount, account,
+                        change.getBalance(), change.getAppliedAt()));
+        return TransactionDto.builder() //account 가 프록시일 수 있어 fromEntity 로 계좌번호를 읽지 않음
+                .accountNumber(accountNumber)
+                .transactionType(transaction.getTransactionType())
+                .transactionResultType(transaction.getTransactionResultType())
+                .amount(transaction.getAmount())
+                .balanceSnapshot(transaction.getBalanceSnapshot())
+                .transactionId(transaction.getTransactionId())
+                .transactedAt(transaction.getTransactedAt())
+                .build();
+    }
+
+    /**
+     * lock 없이 조건부 UPDATE 한 문장으로 차감
+     * 실패했을 때만 다시 조회해서 기존과 같은 순서로 에러를 구분한다.
+     */
+    private TransactionDto useBalanceAtomically(Long userId, String accountNumber, Long amount){
+        if(accountRepository.debitBalance(userId, accountNumber, amount) == 0){
+            AccountUser user=accountUserCache.findById(userId)
+                    .orElseThrow(()->new AccountException(ErrorCode.USER_NOT_FOUND));
+            Account account= accountRepository.findByAccountNumber(accountNumber)
+                    .orElseThrow(()->new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+            validateUseBalance(user,account,amount);
+            throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+        }
+
+        Account account= accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(()->new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+
+        return TransactionDto.fromEntity(saveAndGetTransaction(USE,S,amount, account));
+    }
+
+    /**
+     * 소유주, 상태 검증은 기존과 같고, 잔액 검증과 기록은 저널이 계좌 lock 안에서 함께 한 뒤 응답한다.
+     * account / transaction 테이블 반영은 JournalProjector 가 한다.
+     */
+    private TransactionDto useBalanceJournaled(Long userId, String accountNumber, Long amount){
+        AccountUser user=accountUserCache.findById(userId)
+                .orElseThrow(()->new AccountException(ErrorCode.USER_NOT_FOUND));
+        Account account= accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(()->new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+
+        validateUseAccount(user,account);
+
+        return transactionJournal.debit(accountNumber,amount,
+                ()->dbBalance(accountNumber),newTransactionId()).toDto();
+    }
+
+    //영속성 컨텍스트에 올라온 계좌가 아닌 지금 커밋된 DB 잔액
+    private Long dbBalance(String accountNumber){
+        return accountRepository.findBalanceByAccountNumber(accountNumber)
+                .orElseThrow(()->new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+    }
+
     private void validateUseBalance(AccountUser user, Account account, Long amount) {
+        validateUseAccount(user,account);
+        if(account.getBalance()<amount){
+            throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+        }
+    }
+
+    private void validateUseAccount(AccountUser user, Account account) {
         if(!Objects.equals(user.getId(), account.getAccountUser().getId())){
             throw new AccountException(ErrorCode.USER_ACCOUNT_UN_MATCH);
         }
         if(account.getAccountStatus()!= AccountStatus.IN_USE){
             throw new AccountException(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
         }
-        if(account.getBalance()<amount){
-            throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
-        }
-
     }
 
+    /**
+     * FailedTransactionRecorder 가 모아서 넘기는 실패 거래를 한 트랜잭션에 batch insert
+     * 계좌는 한 번에 조회하고, 없는 계좌의 실패 기록은 남기지 않는다.
+     * balanceSnapshot 은 단건 저장 때와 같이 insert 시점의 잔액이다.
+     */
     @Transactional
-    public void saveFailedUseTransaction(String accountNumber, Long amount) {
-        Account account = accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(()->new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+    public void saveFailedTransactions(List<FailedTransaction> failedTransactions) {
+        Map<String, Account> accounts = accountRepository.findByAccountNumberIn(
+                        failedTransactions.stream()
+                                .map(FailedTransaction::getAccountNumber)
+                                .distinct()
+                                .collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(Account::getAccountNumber, Function.identity()));
 
-        saveAndGetTransaction(USE,F,amount, account);
+        List<Transaction> transactions = new ArrayList<>(failedTransactions.size());
+        for (FailedTransaction failedTransaction : failedTransactions) {
+            Account account = accounts.get(failedTransaction.getAccountNumber());
+            if (account == null) {
+                log.warn("Skip failed transaction for unknown accountNumber : {}",
+                        failedTransaction.getAccountNumber());
+                continue;
+            }
+            transactions.add(buildTransaction(failedTransaction.getTransactionType(), F,
+                    failedTransaction.getAmount(), account, currentBalance(account),
+                    failedTransaction.getFailedAt()));
+        }
+        transactionRepository.saveAll(transactions);
     }
 
     private Transaction saveAndGetTransaction(
             TransactionType transactionType
             ,TransactionResultType transactionResultType, Long amount, Account account) {
-        return transactionRepository.save(
-                Transaction.builder()
-                        .transactionType(transactionType)
-                        .transactionResultType(transactionResultType)
-                        .account(account)
-                        .amount(amount)
-                        .balanceSnapshot(account.getBalance())
-                        .transactionId(UUID.randomUUID().toString().replace("-", ""))
-                        .transactedAt(LocalDateTime.now())
-                        .build()
+        Transaction transaction=transactionRepository.save(
+                buildTransaction(transactionType, transactionResultType, amount, account,
+                        currentBalance(account), LocalDateTime.now())
         );
+        transactionDtoCache.putAfterCommit(TransactionDto.fromEntity(transaction));
+        return transaction;
     }
 
-    @Transactional
-    public TransactionDto cancelBalance(String transactionId, String accountNumber, Long amount) {
+    /**
+     * 저널, 잔액 엔진, redis-lua 모드에서는 DB 잔액이 최신이 아닐 수 있음
+     */
+    private Long currentBalance(Account account) {
+        if(redisBalanceStore != null){
+            Long balance=redisBalanceStore.balanceOf(account.getAccountNumber());
+            return balance != null ? balance : account.getBalance();
+        }
+        if(balanceEngine != null){
+            Long balance=balanceEngine.balanceOf(account.getAccountNumber());
+            return balance != null ? balance : account.getBalance();
+        }
+        if(transactionJournal != null){
+            return transactionJournal.balanceOf(account);
+        }
+        return account.getBalance();
+    }
 
-        Transaction transaction=transactionRepository.findByTransactionId(transactionId)
+    private Transaction buildTransaction(
+            TransactionType transactionType, TransactionResultType transactionResultType,
+            Long amount, Account account, Long balanceSnapshot, LocalDateTime transactedAt) {
+        return Transaction.builder()
+                .transactionType(transactionType)
+                .transactionResultType(transactionResultType)
+                .account(account)
+                .amount(amount)
+                .balanceSnapshot(balanceSnapshot)
+                .transactionId(newTransactionId())
+                .transactedAt(transactedAt)
+                .build();
+    }
+
+    /**
+     * 새 거래 ID 는 저장 전에 KnownIdFilter 에 넣어, 커밋 직후 조회가 걸러지지 않게 한다.
+     */
+    private String newTransactionId() {
+        String transactionId=transactionIdGenerator.generate();
+        if(knownIdFilter != null){
+            knownIdFilter.addTransactionId(transactionId);
+        }
+        return transactionId;
+    }
+
+    private Transaction getTransaction(String transactionId) {
+        if(knownIdFilter != null && !knownIdFilter.mightContainTransactionId(transactionId)){
+            throw new AccountException(ErrorCode.TRANSACTION_NOT_FOUND);
+        }
+        return transactionRepository.findByTransactionId(transactionId)
                 .orElseThrow(()-> new AccountException(ErrorCode.TRANSACTION_NOT_FOUND));
+    }
+
+    /**
+     * 계좌 간 이체, 모든 출금과 입금을 한 트랜잭션에서 처리하고 하나라도 실패하면 전부 rollback 한다.
+     * 계좌는 한 번에 조회하므로 batch 에 여러 번 나오는 계좌도 커밋 때 한 번만 update 된다.
+     * 모든 이체를 먼저 검증하고 나서 잔액을 바꾸므로 검증 실패는 엔티티를 건드리지 않는다. (group-commit batch 를 rollback-only 로 만들지 않음)
+     * atomic 모드는 계좌 lock 이 없으므로 계좌번호 순서로 row lock 을 잡는다.
+     * lane 모드는 출금 계좌의 lane 에서만 돌므로 입금 계좌와의 충돌은 @Version 으로 감지되고 ACCOUNT_TRANSACTION_LOCK 으로 응답한다.
+     * 잔액을 DB 밖에 두는 방식(redis-lua, 저널, 잔액 엔진)에서는 지원하지 않는다.
+     */
+    @Transactional(dontRollbackOn = AccountException.class)
+    public List<TransferDto> transfer(List<Transfer.Request> transfers){
+        if(redisBalanceStore != null || balanceEngine != null || transactionJournal != null){
+            throw new AccountException(ErrorCode.TRANSFER_NOT_SUPPORTED);
+        }
+        List<String> accountNumbers = transfers.stream()
+                .flatMap(transfer -> transfer.getLockAccountNumbers().stream())
+                .distinct()
+                .sorted()
+                .collect(Collectors.toList());
+        Map<String, Account> accounts = ATOMIC_MODE.equals(concurrencyMode)
+                ? lockAccounts(accountNumbers)
+                : accountRepository.findByAccountNumberIn(accountNumbers).stream()
+                .collect(Collectors.toMap(Account::getAccountNumber, Function.identity()));
+        Map<Long, AccountUser> users = accountUserRepository.findAllById(
+                        transfers.stream()
+                                .map(Transfer.Request::getUserId)
+                                .distinct()
+                                .collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(AccountUser::getId, Function.identity()));
+
+        //앞선 이체까지 반영한 잔액으로 검증
+        Map<String, Long> balances = new HashMap<>();
+        for (Transfer.Request transfer : transfers) {
+            AccountUser user = Optional.ofNullable(users.get(transfer.getUserId()))
+                    .orElseThrow(() -> new AccountException(ErrorCode.USER_NOT_FOUND));
+            Account from = Optional.ofNullable(accounts.get(transfer.getFromAccountNumber()))
+                    .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+            Account to = Optional.ofNullable(accounts.get(transfer.getToAccountNumber()))
+                    .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+            if(from == to){
+                throw new AccountException(ErrorCode.INVALID_REQUEST);
+            }
+            validateUseAccount(user, from);
+            long fromBalance = balances.getOrDefault(from.getAccountNumber(), from.getBalance());
+            if(fromBalance < transfer.getAmount()){
+                throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+            }
+            if(to.getAccountStatus() != AccountStatus.IN_USE){
+                throw new AccountException(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
+            }
+            balances.put(from.getAccountNumber(), fromBalance - transfer.getAmount());
+            balances.put(to.getAccountNumber(),
+                    balances.getOrDefault(to.getAccountNumber(), to.getBalance()) + transfer.getAmount());
+        }
+
+        LocalDateTime transactedAt = LocalDateTime.now();
+        List<Transaction> transactions = new ArrayList<>(transfers.size() * 2);
+        List<TransferDto> transferDtos = new ArrayList<>(transfers.size());
+        for (Transfer.Request transfer : transfers) {
+            Account from = accounts.get(transfer.getFromAccountNumber());
+            Account to = accounts.get(transfer.getToAccountNumber());
+
+            from.useBalance(transfer.getAmount());
+            to.cancelBalance(transfer.getAmount());
+
+            Transaction withdraw = buildTransaction(TRANSFER_OUT, S, transfer.getAmount(),
+                    from, from.getBalance(), transactedAt);
+            Transaction deposit = buildTransaction(TRANSFER_IN, S, transfer.getAmount(),
+                    to, to.getBalance(), transactedAt);
+            transactions.add(withdraw);
+            transactions.add(deposit);
+            transferDtos.add(new TransferDto(
+                    TransactionDto.fromEntity(withdraw), TransactionDto.fromEntity(deposit)));
+        }
+        transactionRepository.saveAll(transactions);
+        return transferDtos;
+    }
+
+    //정렬된 accountNumbers 순서로 잡아서 이체끼리 서로 기다리며 멈추지 않게 함
+    private Map<String, Account> lockAccounts(List<String> accountNumbers){
+        Map<String, Account> accounts = new HashMap<>();
+        try {
+            for (String accountNumber : accountNumbers) {
+                accountRepository.findByAccountNumberForUpdate(accountNumber)
+                        .ifPresent(account -> accounts.put(accountNumber, account));
+            }
+        } catch (PessimisticLockingFailureException e) {
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        }
+        return accounts;
+    }
+
+    @Transactional(dontRollbackOn = AccountException.class)
+    public TransactionDto cancelBalance(String transactionId, String accountNumber, Long amount) {
+        if(redisBalanceStore != null){
+            validateCancelWithPending(transactionId, accountNumber, amount);
+            return redisBalanceStore.credit(accountNumber, amount, newTransactionId());
+        }
+        if(transactionJournal != null){
+            validateCancelWithPending(transactionId, accountNumber, amount);
+            return transactionJournal.credit(accountNumber,amount,
+                    ()->dbBalance(accountNumber),newTransactionId()).toDto();
+        }
+
+        Transaction transaction=getTransaction(transactionId);
         Account account=accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
 
         validateCancelBalance(transaction,account,amount);
 
-        account.cancelBalance(amount);
+        if(balanceEngine != null){
+            if(amount<0){
+                throw new AccountException(ErrorCode.INVALID_REQUEST);
+            }
+            return saveInMemoryTransaction(CANCEL, amount, accountNumber, account,
+                    balanceEngine.credit(accountNumber, amount));
+        }
+        if(ATOMIC_MODE.equals(concurrencyMode)){
+            if(amount<0){
+                throw new AccountException(ErrorCode.INVALID_REQUEST);
+            }
+            accountRepository.creditBalance(accountNumber, amount);
+            account=accountRepository.findByAccountNumber(accountNumber)
+                    .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+        } else {
+            account.cancelBalance(amount);
+        }
 
         return TransactionDto.fromEntity(
                 saveAndGetTransaction(CANCEL,S,amount,account)
         );
     }
 
+    /**
+     * 원거래가 아직 DB 에 반영되지 않았으면 저널 / Redis 에서 찾는다.
+     * pending 을 먼저 찾아야 반영 직후 pending 에서 지워진 거래를 놓치지 않는다.
+     */
+    private Account validateCancelWithPending(String transactionId, String accountNumber, Long amount) {
+        Optional<TransactionDto> pending=findPending(transactionId);
+        Transaction transaction=pending.isPresent() ? null : getTransaction(transactionId);
+        Account account=accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+
+        if(pending.isPresent()){
+            TransactionDto original=pending.get();
+            validateCancelBalance(original.getAccountNumber().equals(account.getAccountNumber()),
+                    original.getAmount(),original.getTransactedAt(),amount);
+        } else {
+            validateCancelBalance(transaction,account,amount);
+        }
+        if(amount<0){
+            throw new AccountException(ErrorCode.INVALID_REQUEST);
+        }
+        return account;
+    }
+
+    /**
+     * 계좌별 거래 내역을 최신순으로 size 개씩 keyset 페이지로 조회한다.
+     * cursor 는 이전 페이지 마지막 거래의 (transactedAt, id) 이고, DB 반영 전(저널, redis-lua) 거래는 빠진다.
+     */
+    @ReadOnlyTransactional
+    public TransactionHistory getTransactionHistory(String accountNumber, TransactionType type,
+                                                    TransactionResultType result,
+                                                    String cursor, int size) {
+        if(size<1 || size>MAX_HISTORY_SIZE){
+            throw new AccountException(ErrorCode.INVALID_REQUEST);
+        }
+        Account account=accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+
+        PageRequest page=PageRequest.of(0, size+1); //한 건 더 읽어서 다음 페이지가 있는지 확인
+        List<TransactionHistory.Item> items;
+        if(cursor == null){
+            items=transactionRepository.findHistory(account.getId(), type, result, page);
+        } else {
+            String[] position=decodeCursor(cursor);
+            items=transactionRepository.findHistoryAfter(account.getId(), type, result,
+                    LocalDateTime.parse(position[0]), Long.valueOf(position[1]), page);
+        }
+
+        if(items.size()<=size){
+            return new TransactionHistory(items, null);
+        }
+        TransactionHistory.Item last=items.get(size-1);
+        return new TransactionHistory(items.subList(0, size), encodeCursor(last));
+    }
+
+    private static String encodeCursor(TransactionHistory.Item item) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(
+                (item.getTransactedAt() + "|" + item.getId()).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String[] position=new String(Base64.getUrlDecoder().decode(cursor),
+                    StandardCharsets.UTF_8).split("\\|");
+            if(position.length!=2){
+                throw new AccountException(ErrorCode.INVALID_REQUEST);
+            }
+            LocalDateTime.parse(position[0]);
+            Long.parseLong(position[1]);
+            return position;
+        } catch (IllegalArgumentException | DateTimeParseException e){
+            throw new AccountException(ErrorCode.INVALID_REQUEST);
+        }
+    }
+
+    private Optional<TransactionDto> findPending(String transactionId) {
+        if(redisBalanceStore != null){
+            return redisBalanceStore.findPending(transactionId);
+        }
+        if(transactionJournal != null){
+            return transactionJournal.findPending(transactionId).map(JournalRecord::toDto);
+        }
+        return Optional.empty();
+    }
+
     private void validateCancelBalance(Transaction transaction, Account account, Long amount) {
-        if(!Objects.equals(transaction.getAccount().getId(), account.getId())){
+        validateCancelBalance(Objects.equals(transaction.getAccount().getId(), account.getId()),
+                transaction.getAmount(),transaction.getTransactedAt(),amount);
+    }
+
+    private void validateCancelBalance(boolean sameAccount, Long transactionAmount,
+                                       LocalDateTime transactedAt, Long amount) {
+        if(!sameAccount){
             throw new AccountException(ErrorCode.TRANSACTION_ACCOUNT_UN_MATCH);
         }
-        if(!Objects.equals(transaction.getAmount(),amount)){
+        if(!Objects.equals(transactionAmount,amount)){
             throw new AccountException(ErrorCode.CANCEL_MUST_FULLY);
         }
-        if(transaction.getTransactedAt().isBefore(LocalDateTime.now().minusYears(1))){
+        if(transactedAt.isBefore(LocalDateTime.now().minusYears(1))){
             throw new AccountException(ErrorCode.TOO_OLD_ORDER_TO_CANCEL);
         }
     }
 
-    @Transactional
-    public void saveFailedCancelTransaction(String accountNumber, Long amount) {
-        Account account = accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(()->new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
-
-        saveAndGetTransaction(CANCEL,F,amount, account);
-    }
-
 
+    /**
+     * 캐시 -> 아직 DB 에 반영되지 않은 거래 -> DB 순으로 찾는다.
+     * 거래는 저장 후 바뀌지 않으므로 캐시에 있으면 그대로 쓴다.
+     */
+    @ReadOnlyTransactional
     public TransactionDto queryTransaction(String transactionId) {
-        return TransactionDto.fromEntity(
-                transactionRepository.findByTransactionId(transactionId)
-                        .orElseThrow(()->new AccountException(ErrorCode.TRANSACTION_NOT_FOUND))
-
-        );
+        TransactionDto cached=transactionDtoCache.get(transactionId);
+        if(cached != null){
+            return cached;
+        }
+        Optional<TransactionDto> pending=findPending(transactionId);
+        if(pending.isPresent()){
+            return pending.get();
+        }
+        if(knownIdFilter != null && !knownIdFilter.mightContainTransactionId(transactionId)){
+            throw new AccountException(ErrorCode.TRANSACTION_NOT_FOUND);
+        }
+        TransactionDto transactionDto=transactionRepository.findDtoByTransactionId(transactionId)
+                .orElseThrow(()->new AccountException(ErrorCode.TRANSACTION_NOT_FOUND));
+        transactionDtoCache.put(transactionDto);
+        return transactionDto;
     }
 }
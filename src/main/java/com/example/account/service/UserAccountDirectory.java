@@ -0,0 +1,151 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.type.AccountStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+
+/**
+ * 사용자별 계좌 목록 캐시 (userId -> 계좌번호, 상태 최대 10개)
+ * 계좌 생성 제한 확인과 계좌 목록 조회에서 사용자/계좌 조회를 줄인다.
+ * 변경은 커밋 후에 반영하고, 최근에 쓰인 max-users 명까지만 보관한다.
+ * 서버마다 따로 들고 있으므로 계좌 생성/해지가 한 서버로 모일 때 정확하다.
+ * 변경은 캐시에 없는 사용자라도 사용자별 version 을 올려, 그 전에 시작한 DB 조회 결과가 캐시되지 않게 한다.
+ */
+@Component
+public class UserAccountDirectory {
+    private static final int VERSION_STRIPES = 1024;
+
+    private final Map<Long, Entry> entries;
+    private final long[] versions = new long[VERSION_STRIPES]; //entries 의 monitor 안에서만 읽고 씀
+
+    public UserAccountDirectory(@Value("${account.directory.max-users:10000}") int maxUsers) {
+        this.entries = Collections.synchronizedMap(
+                new LinkedHashMap<Long, Entry>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                        return size() > maxUsers;
+                    }
+                });
+    }
+
+    public Entry get(Long userId) {
+        return entries.get(userId);
+    }
+
+    /**
+     * DB 에서 계좌 목록을 읽기 전에 받아 두고 load 에 넘긴다.
+     */
+    public long version(Long userId) {
+        synchronized (entries) {
+            return versions[stripe(userId)];
+        }
+    }
+
+    public void load(Long userId, List<Account> accounts) {
+        load(userId, accounts, version(userId));
+    }
+
+    /**
+     * version 을 받은 뒤 계좌 생성/해지가 커밋되었으면 읽은 목록이 낡았으므로 캐시하지 않는다.
+     */
+    public void load(Long userId, List<Account> accounts, long version) {
+        synchronized (entries) {
+            if (versions[stripe(userId)] == version) {
+                entries.put(userId, Entry.of(accounts));
+            }
+        }
+    }
+
+    public void addAccount(Long userId, String accountNumber, AccountStatus status) {
+        afterCommit(() -> change(userId, accountNumber, status));
+    }
+
+    public void updateStatus(Long userId, String accountNumber, AccountStatus status) {
+        afterCommit(() -> change(userId, accountNumber, status));
+    }
+
+    private void change(Long userId, String accountNumber, AccountStatus status) {
+        synchronized (entries) {
+            versions[stripe(userId)]++;
+            entries.computeIfPresent(userId, (id, entry) -> entry.with(accountNumber, status));
+        }
+    }
+
+    private static int stripe(Long userId) {
+        return Long.hashCode(userId) & (VERSION_STRIPES - 1);
+    }
+
+    public void invalidate(Long userId) {
+        entries.remove(userId);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    public static final class Entry {
+        private final String[] accountNumbers;
+        private final AccountStatus[] statuses;
+
+        private Entry(String[] accountNumbers, AccountStatus[] statuses) {
+            this.accountNumbers = accountNumbers;
+            this.statuses = statuses;
+        }
+
+        static Entry of(List<Account> accounts) {
+            String[] accountNumbers = new String[accounts.size()];
+            AccountStatus[] statuses = new AccountStatus[accounts.size()];
+            for (int i = 0; i < accounts.size(); i++) {
+                accountNumbers[i] = accounts.get(i).getAccountNumber();
+                statuses[i] = accounts.get(i).getAccountStatus();
+            }
+            return new Entry(accountNumbers, statuses);
+        }
+
+        Entry with(String accountNumber, AccountStatus status) {
+            for (int i = 0; i < accountNumbers.length; i++) {
+                if (accountNumbers[i].equals(accountNumber)) {
+                    AccountStatus[] changed = statuses.clone();
+                    changed[i] = status;
+                    return new Entry(accountNumbers, changed);
+                }
+            }
+            String[] addedNumbers = Arrays.copyOf(accountNumbers, accountNumbers.length + 1);
+            AccountStatus[] addedStatuses = Arrays.copyOf(statuses, statuses.length + 1);
+            addedNumbers[accountNumbers.length] = accountNumber;
+            addedStatuses[statuses.length] = status;
+            return new Entry(addedNumbers, addedStatuses);
+        }
+
+        public int size() {
+            return accountNumbers.length;
+        }
+
+        public List<String> getAccountNumbers() {
+            return List.of(accountNumbers);
+        }
+
+        public AccountStatus getStatus(String accountNumber) {
+            for (int i = 0; i < accountNumbers.length; i++) {
+                if (accountNumbers[i].equals(accountNumber)) {
+                    return statuses[i];
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -20,7 +20,11 @@ public enum ErrorCode {
     USER_ACCOUNT_UN_MATCH("사용자와 계좌의 소유주가 다릅니다."),
     ACCOUNT_ALREADY_UNREGISTERED("계좌가 이미 해지되었습니다."),
     BALANCE_NOT_EMPTY("잔액이 잇는 계좌는 해지할 수 없습니다."),
-    MAX_ACCOUNT_PER_USER_10("사용자 최대 계좌는 10개 입니다.");
+    MAX_ACCOUNT_PER_USER_10("사용자 최대 계좌는 10개 입니다."),
+    ACCOUNT_NUMBER_EXHAUSTED("더 이상 발급할 계좌번호가 없습니다."),
+    IDEMPOTENCY_KEY_IN_USE("같은 Idempotency-Key 로 처리 중인 요청이 있습니다."),
+    IDEMPOTENCY_KEY_REUSED("같은 Idempotency-Key 로 다른 내용의 요청을 보낼 수 없습니다."),
+    TRANSFER_NOT_SUPPORTED("현재 잔액 처리 방식에서는 이체를 지원하지 않습니다.");
 
     private final String description;
 }
@@ -5,4 +5,6 @@ insert into account_user(id,name,created_at,updated_at)
 values(2,'Lupi',now(),now());
 
 insert into account_user(id,name,created_at,updated_at)
-values(3,'Ko',now(),now());
\ No newline at end of file
+values(3,'Ko',now(),now());
+
+alter sequence account_user_seq restart with 4;
@@ -0,0 +1,11 @@
+-- 계좌번호 블록 sequence, 값은 계좌번호 offset (계좌번호 - 1000000000) 이고 한 번에 블록 하나만큼 증가
+-- increment 는 account.number.block-size 와 같아야 한다.
+create sequence if not exists account_number_block_seq start with 0 minvalue 0 increment by 100;
+
+-- 이미 발급된 계좌번호 뒤에서 시작, 다른 서버가 예약해 둔 블록보다 앞으로 되돌리지 않는다.
+alter sequence account_number_block_seq restart with (
+    select greatest(
+        coalesce((select max(cast(account_number as bigint)) - 1000000000 + 1 from account), 0),
+        (select base_value from information_schema.sequences
+         where sequence_name = 'ACCOUNT_NUMBER_BLOCK_SEQ'))
+);
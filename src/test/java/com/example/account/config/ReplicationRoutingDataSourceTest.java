@@ -0,0 +1,105 @@
+package com.example.account.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * H2 메모리 DB 두 개를 primary / replica 로 두고 어느 쪽에서 읽는지 확인
+ */
+class ReplicationRoutingDataSourceTest {
+    private DriverManagerDataSource primary;
+    private DriverManagerDataSource replica;
+    private ReplicaLagMonitor replicaLagMonitor;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        primary = new DriverManagerDataSource("jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1", "sa", "");
+        replica = new DriverManagerDataSource("jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1", "sa", "");
+        initialize(primary, "primary");
+        initialize(replica, "replica");
+        replicaLagMonitor = new ReplicaLagMonitor(primary, replica, 1000, 60_000);
+
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(
+                new ReplicationRoutingDataSource(primary, replica, replicaLagMonitor));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    @Test
+    @DisplayName("읽기 전용 트랜잭션은 replica, 나머지는 primary")
+    void routeByReadOnly() {
+        //given
+        replicaHeartbeat(System.currentTimeMillis());
+        replicaLagMonitor.check();
+
+        //when
+        String readOnly = read(true);
+        String readWrite = read(false);
+
+        //then
+        assertTrue(replicaLagMonitor.isReplicaUsable());
+        assertEquals("replica", readOnly);
+        assertEquals("primary", readWrite);
+    }
+
+    @Test
+    @DisplayName("replica 지연이 max-lag 를 넘으면 읽기 전용도 primary")
+    void replicaLagging() {
+        //given
+        replicaHeartbeat(System.currentTimeMillis() - 10_000);
+        replicaLagMonitor.check();
+
+        //when
+        String readOnly = read(true);
+
+        //then
+        assertFalse(replicaLagMonitor.isReplicaUsable());
+        assertEquals("primary", readOnly);
+    }
+
+    @Test
+    @DisplayName("replica 연결 실패 - primary 로 읽고 replica 를 끔")
+    void replicaDown() {
+        //given
+        replicaHeartbeat(System.currentTimeMillis());
+        replicaLagMonitor.check();
+        replica.setUrl("jdbc:h2:tcp://127.0.0.1:1/none");
+
+        //when
+        String readOnly = read(true);
+
+        //then
+        assertEquals("primary", readOnly);
+        assertFalse(replicaLagMonitor.isReplicaUsable());
+    }
+
+    private String read(boolean readOnly) {
+        transactionTemplate.setReadOnly(readOnly);
+        return transactionTemplate.execute(status ->
+                jdbcTemplate.queryForObject("select name from node", String.class));
+    }
+
+    private void replicaHeartbeat(long beatAt) {
+        new JdbcTemplate(replica).update("update replication_heartbeat set beat_at = ?", beatAt);
+    }
+
+    private static void initialize(DriverManagerDataSource dataSource, String name) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table if not exists node (name varchar(16))");
+        jdbcTemplate.update("delete from node");
+        jdbcTemplate.update("insert into node (name) values (?)", name);
+        jdbcTemplate.execute("create table if not exists replication_heartbeat" +
+                " (id int primary key, beat_at bigint not null)");
+        jdbcTemplate.update("merge into replication_heartbeat (id, beat_at) values (1, 0)");
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.account.repository;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.domain.Transaction;
+import com.example.account.dto.AccountDto;
+import com.example.account.dto.TransactionDto;
+import com.example.account.type.AccountStatus;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 조회 경로가 필요한 만큼만 SQL 을 실행하는지 확인
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class QueryCountTest {
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        AccountUser user = entityManager.persist(AccountUser.builder().name("Pobi").build());
+        Account account = entityManager.persist(Account.builder()
+                .accountUser(user)
+                .accountStatus(AccountStatus.IN_USE)
+                .accountNumber("1000000012")
+                .balance(10000L)
+                .registerdAt(LocalDateTime.now())
+                .build());
+        entityManager.persist(Transaction.builder()
+                .account(account)
+                .transactionType(USE)
+                .transactionResultType(S)
+                .amount(1000L)
+                .balanceSnapshot(9000L)
+                .transactionId("transactionId")
+                .transactedAt(LocalDateTime.now())
+                .build());
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    @DisplayName("거래 조회 - 쿼리 한 번으로 TransactionDto")
+    void findDtoByTransactionId() {
+        //when
+        TransactionDto transactionDto = transactionRepository.findDtoByTransactionId("transactionId").get();
+
+        //then
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals("1000000012", transactionDto.getAccountNumber());
+        assertEquals(9000L, transactionDto.getBalanceSnapshot());
+    }
+
+    @Test
+    @DisplayName("계좌 목록 조회 - 사용자 테이블 없이 쿼리 한 번")
+    void findDtosByAccountNumberIn() {
+        //when
+        List<AccountDto> accountDtos = accountRepository.findDtosByAccountNumberIn(
+                Collections.singletonList("1000000012"));
+
+        //then
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(1, accountDtos.size());
+        assertNotNull(accountDtos.get(0).getUserId());
+        assertEquals(10000L, accountDtos.get(0).getBalance());
+    }
+
+    @Test
+    @DisplayName("계좌 조회 - 소유주까지 쿼리 한 번으로 읽어 트랜잭션 밖에서도 직렬화됨")
+    void findWithAccountUserById() throws Exception {
+        //given
+        Long id = accountRepository.findByAccountNumber("1000000012").get().getId();
+        entityManager.clear();
+        statistics.clear();
+
+        //when
+        Account account = accountRepository.findWithAccountUserById(id).get();
+        entityManager.clear(); //open-in-view 가 꺼져 있어 응답을 쓸 때는 detached
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        JsonNode json = objectMapper.readTree(objectMapper.writeValueAsString(account));
+
+        //then
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals("1000000012", json.get("accountNumber").asText());
+        assertEquals("Pobi", json.get("accountUser").get("name").asText());
+    }
+
+    @Test
+    @DisplayName("잔액 사용, 취소 - 계좌, 원거래 조회가 연관 엔티티를 함께 읽지 않음")
+    void useAndCancelLookups() {
+        //when
+        Account account = accountRepository.findByAccountNumber("1000000012").get();
+        Transaction transaction = transactionRepository.findByTransactionId("transactionId").get();
+
+        //then
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertNotNull(account.getAccountUser().getId());
+        assertEquals(account.getId(), transaction.getAccount().getId());
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityFetchCount());
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.account.service;
+
+import com.example.account.dto.UseBalance;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountLaneExecutorTest {
+    private AccountLaneExecutor accountLaneExecutor;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        accountLaneExecutor.destroy();
+    }
+
+    @Test
+    @DisplayName("같은 계좌 작업은 겹치지 않고 순서대로 실행")
+    void sameAccountRunsSerially() throws Exception {
+        //given
+        accountLaneExecutor = new AccountLaneExecutor(16, 4, 1000);
+        UseBalance.Request request = new UseBalance.Request(1L, "1000000000", 100L);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger overlapped = new AtomicInteger();
+        List<Integer> order = new ArrayList<>();
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+
+        //when
+        for (int i = 0; i < 500; i++) {
+            int seq = i;
+            futures.add(accountLaneExecutor.submit(request, () -> {
+                if (running.incrementAndGet() > 1) {
+                    overlapped.incrementAndGet();
+                }
+                order.add(seq);
+                running.decrementAndGet();
+                return seq;
+            }));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .get(10, TimeUnit.SECONDS);
+
+        //then
+        assertEquals(0, overlapped.get());
+        assertEquals(500, order.size());
+        for (int i = 0; i < 500; i++) {
+            assertEquals(i, order.get(i));
+        }
+    }
+
+    @Test
+    @DisplayName("lane 이 가득 차면 바로 실패")
+    void saturatedLaneFastFail() throws Exception {
+        //given
+        accountLaneExecutor = new AccountLaneExecutor(16, 1, 1);
+        UseBalance.Request request = new UseBalance.Request(1L, "1000000000", 100L);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        accountLaneExecutor.submit(request, () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        });
+        started.await(5, TimeUnit.SECONDS);
+        accountLaneExecutor.submit(request, () -> null);
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> accountLaneExecutor.submit(request, () -> null));
+        release.countDown();
+
+        //then
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("작업 예외는 future 로 전달")
+    void failedTaskCompletesExceptionally() {
+        //given
+        accountLaneExecutor = new AccountLaneExecutor(16, 1, 10);
+        UseBalance.Request request = new UseBalance.Request(1L, "1000000000", 100L);
+
+        //when
+        CompletableFuture<Object> future = accountLaneExecutor.submit(request, () -> {
+            throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+        });
+
+        //then
+        Exception exception = assertThrows(Exception.class, future::join);
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE,
+                ((AccountException) exception.getCause()).getErrorCode());
+    }
+
+    @Test
+    @DisplayName("worker 가 요청을 받지 않으면 대기 중인 요청을 실패시키고 lane 을 다시 쓸 수 있게 함")
+    void rejectedSubmissionFailsQueuedTasks() throws Exception {
+        //given
+        accountLaneExecutor = new AccountLaneExecutor(16, 1, 1000);
+        UseBalance.Request request = new UseBalance.Request(1L, "1000000000", 100L);
+        accountLaneExecutor.destroy();
+
+        //when
+        CompletableFuture<Integer> first = accountLaneExecutor.submit(request, () -> 1);
+        CompletableFuture<Integer> second = accountLaneExecutor.submit(request, () -> 2);
+
+        //then
+        for (CompletableFuture<Integer> future : List.of(first, second)) {
+            ExecutionException exception = assertThrows(ExecutionException.class,
+                    () -> future.get(1, TimeUnit.SECONDS));
+            assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK,
+                    ((AccountException) exception.getCause()).getErrorCode());
+        }
+    }
+}
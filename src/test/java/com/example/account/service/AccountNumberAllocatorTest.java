@@ -0,0 +1,72 @@
+package com.example.account.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountNumberAllocatorTest {
+
+    @Test
+    @DisplayName("첫 계좌번호는 1000000000, 블록 단위로만 source 조회")
+    void allocateFromBlock() {
+        //given
+        AtomicLong reserved = new AtomicLong();
+        AtomicLong reserveCalls = new AtomicLong();
+        AccountNumberAllocator allocator = new AccountNumberAllocator(blockSize -> {
+            reserveCalls.incrementAndGet();
+            return reserved.getAndAdd(blockSize);
+        }, 10);
+
+        //when
+        List<String> accountNumbers = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            accountNumbers.add(allocator.next());
+        }
+
+        //then
+        assertEquals("1000000000", accountNumbers.get(0));
+        assertEquals("1000000024", accountNumbers.get(24));
+        assertEquals(3, reserveCalls.get());
+    }
+
+    @Test
+    @DisplayName("여러 서버, 여러 스레드가 동시에 발급해도 중복 없음")
+    void uniqueUnderConcurrentAllocation() throws Exception {
+        //given
+        AtomicLong sharedCounter = new AtomicLong(); // Redis INCRBY 역할
+        AccountNumberBlockSource source = blockSize -> sharedCounter.getAndAdd(blockSize);
+        List<AccountNumberAllocator> nodes = List.of(
+                new AccountNumberAllocator(source, 7),
+                new AccountNumberAllocator(source, 7),
+                new AccountNumberAllocator(source, 7));
+        Set<String> issued = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(12);
+        int perThread = 5000;
+
+        //when
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 12; t++) {
+            AccountNumberAllocator node = nodes.get(t % nodes.size());
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    assertTrue(issued.add(node.next()));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        //then
+        assertEquals(12 * perThread, issued.size());
+        issued.forEach(accountNumber -> assertEquals(10, accountNumber.length()));
+    }
+}
@@ -20,6 +20,8 @@ import javax.swing.*;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -36,6 +38,15 @@ class AccountServiceTest {
     @Mock
     private AccountUserRepository accountUserRepository;
 
+    @Mock
+    private AccountUserCache accountUserCache;
+
+    @Mock
+    private AccountNumberAllocator accountNumberAllocator;
+
+    @Mock
+    private UserAccountDirectory userAccountDirectory;
+
     @InjectMocks
     private AccountService accountService;
 
@@ -44,7 +55,7 @@ class AccountServiceTest {
     void createdAccount_UserNotFound() {
         //given
 
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.findById(anyLong()))
                 .willReturn(Optional.empty());
 
         //when
@@ -68,7 +79,7 @@ class AccountServiceTest {
 
         user.setId(12L);
 
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.findById(anyLong()))
                 .willReturn(Optional.of(user));
         given(accountRepository.countByAccountUser(any()))
                 .willReturn(10);
@@ -89,7 +100,7 @@ class AccountServiceTest {
                 .build();  //변수화
         user.setId(12L);
 
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.findById(anyLong()))
                 .willReturn(Optional.of(user));
 
         given(accountRepository.findByAccountNumber(anyString()))
@@ -117,7 +128,7 @@ class AccountServiceTest {
     void deleteAccount_UserNotFound() {
         //given
 
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.findById(anyLong()))
                 .willReturn(Optional.empty());
 
         //when
@@ -140,7 +151,7 @@ class AccountServiceTest {
                 .build();  //변수화
         user.setId(12L);
 
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.findById(anyLong()))
                 .willReturn(Optional.of(user));
 
         given(accountRepository.findByAccountNumber(anyString()))
@@ -173,7 +184,7 @@ class AccountServiceTest {
                 .build();  //변수화
         Marry.setId(13L);
 
-        given(accountUserRepository.findById(anyLong()))  //확이 계좌 소유주는 pobi
+        given(accountUserCache.findById(anyLong()))  //확이 계좌 소유주는 pobi
                 .willReturn(Optional.of(Pobi));
 
         given(accountRepository.findByAccountNumber(anyString())) //근데 소유주가 Marry
@@ -204,7 +215,7 @@ class AccountServiceTest {
         Pobi.setId(12L);
 
 
-        given(accountUserRepository.findById(anyLong()))  //소유주는 pobi로 같지만
+        given(accountUserCache.findById(anyLong()))  //소유주는 pobi로 같지만
                 .willReturn(Optional.of(Pobi));
 
         given(accountRepository.findByAccountNumber(anyString()))
@@ -235,7 +246,7 @@ class AccountServiceTest {
         Pobi.setId(12L);
 
 
-        given(accountUserRepository.findById(anyLong()))  //소유주는 pobi로 같지만
+        given(accountUserCache.findById(anyLong()))  //소유주는 pobi로 같지만
                 .willReturn(Optional.of(Pobi));
 
         given(accountRepository.findByAccountNumber(anyString()))
@@ -282,7 +293,7 @@ class AccountServiceTest {
                         .build()
         );
 
-        given(accountUserRepository.findById(anyLong()))  //소유주는 pobi로 같지만
+        given(accountUserCache.findById(anyLong()))  //소유주는 pobi로 같지만
                 .willReturn(Optional.of(Pobi));
         given(accountRepository.findByAccountUser(any()))
                 .willReturn(accounts);
@@ -307,7 +318,7 @@ class AccountServiceTest {
     @Test
     void failedToGetAccounts() {  //해당 계좌 사용자가 없음
         //given
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.findById(anyLong()))
                 .willReturn(Optional.empty());
         //when
         AccountException exception=assertThrows(AccountException.class,
@@ -324,11 +335,11 @@ class AccountServiceTest {
                 .name("Pobi")
                 .build();  //변수화
         user.setId(15L);
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.findById(anyLong()))
                 .willReturn(Optional.of(user));
 
-        given(accountRepository.findFirstByOrderByIdDesc())
-                .willReturn(Optional.empty());
+        given(accountNumberAllocator.next())
+                .willReturn("1000000000");
         given(accountRepository.save(any()))
                 .willReturn(Account.builder()
                         .accountUser(user)
@@ -347,7 +358,63 @@ class AccountServiceTest {
 
     }
 
+    @Test
+    @DisplayName("계좌 목록 캐시 - 최대 계좌 수 확인에 DB 조회 없음")
+    void createAccount_maxAccountIs10_fromDirectory() {
+        //given
+        AccountUser user=AccountUser.builder()
+                .name("Pobi")
+                .build();
+        user.setId(12L);
+        UserAccountDirectory directory = new UserAccountDirectory(10);
+        directory.load(12L, IntStream.range(0, 10)
+                .mapToObj(i -> Account.builder()
+                        .accountUser(user)
+                        .accountStatus(AccountStatus.IN_USE)
+                        .accountNumber(String.valueOf(1000000000L + i))
+                        .build())
+                .collect(Collectors.toList()));
+        given(userAccountDirectory.get(anyLong()))
+                .willReturn(directory.get(12L));
+
+        //when
+        AccountException exception=assertThrows(AccountException.class,
+                ()->accountService.createAccount(12L,1000L));
+
+        //then
+        assertEquals(ErrorCode.MAX_ACCOUNT_PER_USER_10,exception.getErrorCode());
+        verify(accountUserCache,times(0)).findById(anyLong());
+        verify(accountRepository,times(0)).countByAccountUser(any());
+    }
 
+    @Test
+    @DisplayName("계좌 목록 캐시 - 사용자 조회 없이 계좌 목록 조회")
+    void getAccountsByUserId_fromDirectory() {
+        //given
+        AccountUser Pobi=AccountUser.builder()
+                .name("Pobi")
+                .build();
+        Pobi.setId(12L);
+        List<Account> accounts= Arrays.asList(
+                Account.builder()
+                        .accountUser(Pobi)
+                        .accountStatus(AccountStatus.IN_USE)
+                        .accountNumber("1111111111")
+                        .balance(1000L)
+                        .build());
+        UserAccountDirectory directory = new UserAccountDirectory(10);
+        directory.load(12L, accounts);
+        given(userAccountDirectory.get(anyLong()))
+                .willReturn(directory.get(12L));
+        given(accountRepository.findDtosByAccountNumberIn(any()))
+                .willReturn(Arrays.asList(AccountDto.fromEntity(accounts.get(0))));
 
+        //when
+        List<AccountDto> accountDtos = accountService.getAccountsByUserId(12L);
 
-}
\ No newline at end of file
+        //then
+        assertEquals(1,accountDtos.size());
+        assertEquals("1111111111",accountDtos.get(0).getAccountNumber());
+        verify(accountUserCache,times(0)).findById(anyLong());
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.account.service;
+
+import com.example.account.domain.AccountUser;
+import com.example.account.repository.AccountUserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class AccountUserCacheTest {
+    @Mock
+    private AccountUserRepository accountUserRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private AccountUserCache accountUserCache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        accountUserCache = new AccountUserCache(accountUserRepository, meterRegistry, 1);
+    }
+
+    @Test
+    @DisplayName("두 번째 조회부터는 DB 를 거치지 않고 새 객체를 돌려줌")
+    void findByIdCached() {
+        //given
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user(12L, "Pobi")));
+
+        //when
+        AccountUser first = accountUserCache.findById(12L).get();
+        first.setName("Changed");
+        AccountUser second = accountUserCache.findById(12L).get();
+
+        //then
+        verify(accountUserRepository, times(1)).findById(12L);
+        assertEquals(12L, second.getId());
+        assertEquals("Pobi", second.getName());
+        assertEquals(1.0, meterRegistry.counter("account.user_cache.hit").count());
+        assertEquals(1.0, meterRegistry.counter("account.user_cache.miss").count());
+    }
+
+    @Test
+    @DisplayName("invalidate 나 max-size 초과로 내보낸 사용자는 다시 조회, 없는 사용자는 캐시하지 않음")
+    void invalidateAndEvict() {
+        //given
+        given(accountUserRepository.findById(12L)).willReturn(Optional.of(user(12L, "Pobi")));
+        given(accountUserRepository.findById(13L)).willReturn(Optional.of(user(13L, "Crong")));
+        given(accountUserRepository.findById(99L)).willReturn(Optional.empty());
+
+        //when
+        accountUserCache.findById(12L);
+        accountUserCache.invalidate(12L);
+        accountUserCache.findById(12L);
+        accountUserCache.findById(13L);
+        accountUserCache.findById(12L);
+        accountUserCache.findById(99L);
+        accountUserCache.findById(99L);
+
+        //then
+        verify(accountUserRepository, times(3)).findById(12L);
+        verify(accountUserRepository, times(2)).findById(99L);
+        assertEquals(2.0, meterRegistry.counter("account.user_cache.eviction").count());
+    }
+
+    @Test
+    @DisplayName("넘치면 최근 조회 표시가 없는 사용자부터 내보냄")
+    void evictUnreferencedFirst() {
+        //given
+        meterRegistry = new SimpleMeterRegistry();
+        accountUserCache = new AccountUserCache(accountUserRepository, meterRegistry, 2);
+        given(accountUserRepository.findById(anyLong()))
+                .willAnswer(invocation -> Optional.of(user(invocation.getArgument(0), "Pobi")));
+
+        //when
+        accountUserCache.findById(12L);
+        accountUserCache.findById(13L);
+        accountUserCache.findById(12L); //12 만 다시 조회됨
+        accountUserCache.findById(14L);
+        accountUserCache.findById(12L);
+
+        //then
+        verify(accountUserRepository, times(1)).findById(12L);
+        assertEquals(1.0, meterRegistry.counter("account.user_cache.eviction").count());
+        assertEquals(2.0, meterRegistry.get("account.user_cache.size").gauge().value());
+    }
+
+    private static AccountUser user(Long id, String name) {
+        AccountUser accountUser = AccountUser.builder()
+                .name(name)
+                .build();
+        accountUser.setId(id);
+        return accountUser;
+    }
+}
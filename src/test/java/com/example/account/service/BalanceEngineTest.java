@@ -0,0 +1,147 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.exception.AccountException;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BalanceEngineTest {
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("DB 조회 없이 소유주, 상태, 잔액 순서로 검증하고 차감")
+    void debitValidatesInMemory() {
+        //given
+        BalanceEngine engine = new BalanceEngine(jdbcTemplate, 4, 1000);
+        engine.register(account(1L, "1000000000", 12L, 1000L));
+
+        //when
+        BalanceEngine.Change change = engine.debit(12L, "1000000000", 300L);
+
+        //then
+        assertEquals(1L, change.getAccountId());
+        assertEquals(700L, change.getBalance());
+        assertEquals(ErrorCode.ACCOUNT_NOT_FOUND, assertThrows(AccountException.class,
+                () -> engine.debit(12L, "1000000001", 100L)).getErrorCode());
+        assertEquals(ErrorCode.USER_ACCOUNT_UN_MATCH, assertThrows(AccountException.class,
+                () -> engine.debit(13L, "1000000000", 100L)).getErrorCode());
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, assertThrows(AccountException.class,
+                () -> engine.debit(12L, "1000000000", 701L)).getErrorCode());
+        engine.unregister("1000000000");
+        assertEquals(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED, assertThrows(AccountException.class,
+                () -> engine.debit(12L, "1000000000", 100L)).getErrorCode());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("표가 늘어나도 잔액 유지, 같은 계좌의 거래 시각은 계속 증가")
+    void growsAndStampsMonotonically() {
+        //given
+        BalanceEngine engine = new BalanceEngine(jdbcTemplate, 1, 1000);
+        for (long i = 0; i < 1000; i++) {
+            engine.register(account(i + 1, String.valueOf(1000000000L + i), 12L, i));
+        }
+
+        //when
+        BalanceEngine.Change first = engine.credit("1000000999", 1L);
+        BalanceEngine.Change second = engine.credit("1000000999", 1L);
+
+        //then
+        for (long i = 0; i < 999; i++) {
+            assertEquals(i, engine.balanceOf(String.valueOf(1000000000L + i)));
+        }
+        assertEquals(1001L, second.getBalance());
+        assertTrue(second.getAppliedAt().isAfter(first.getAppliedAt()));
+    }
+
+    @Test
+    @DisplayName("checkpoint 는 바뀐 계좌만 한 번씩 내린다")
+    void checkpointWritesDirtyAccountsOnce() {
+        //given
+        BalanceEngine engine = new BalanceEngine(jdbcTemplate, 4, 1000);
+        engine.register(account(1L, "1000000000", 12L, 1000L));
+        engine.register(account(2L, "1000000001", 12L, 1000L));
+        engine.debit(12L, "1000000000", 100L);
+        engine.debit(12L, "1000000000", 100L);
+
+        //when
+        engine.checkpoint();
+        engine.checkpoint();
+
+        //then
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(sql.capture(), captor.capture());
+        assertFalse(sql.getValue().contains("version"));
+        assertEquals(1, captor.getValue().size());
+        assertEquals(800L, captor.getValue().get(0)[0]);
+        assertEquals("1000000000", captor.getValue().get(0)[2]);
+    }
+
+    @Test
+    @DisplayName("커밋 전 변경이 남은 계좌는 checkpoint 하지 않고, 롤백되면 잔액을 되돌린다")
+    void checkpointSkipsUncommittedChanges() {
+        //given
+        BalanceEngine engine = new BalanceEngine(jdbcTemplate, 4, 1000);
+        engine.register(account(1L, "1000000000", 12L, 1000L));
+        TransactionSynchronizationManager.initSynchronization();
+        List<TransactionSynchronization> committed;
+        List<TransactionSynchronization> rolledBack;
+        try {
+            engine.debit(12L, "1000000000", 100L);
+            committed = TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            engine.debit(12L, "1000000000", 200L);
+            rolledBack = TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        //when
+        committed.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        engine.checkpoint();
+        rolledBack.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        engine.checkpoint();
+
+        //then
+        ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), captor.capture());
+        assertEquals(900L, captor.getValue().get(0)[0]);
+        assertEquals(900L, engine.balanceOf("1000000000"));
+    }
+
+    private static Account account(Long id, String accountNumber, Long userId, Long balance) {
+        AccountUser user = AccountUser.builder().name("Pobi").build();
+        user.setId(userId);
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountNumber(accountNumber)
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(balance)
+                .build();
+        account.setId(id);
+        return account;
+    }
+}
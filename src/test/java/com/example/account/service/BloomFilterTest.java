@@ -0,0 +1,35 @@
+package com.example.account.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterTest {
+
+    @Test
+    @DisplayName("넣은 값은 모두 있다고 하고 없는 값은 fpp 근처 비율로만 있다고 함")
+    void mightContain() {
+        //given
+        BloomFilter bloomFilter = new BloomFilter(100_000, 0.01);
+        for (int i = 0; i < 100_000; i++) {
+            bloomFilter.put("known" + i);
+        }
+
+        //when
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (bloomFilter.mightContain("unknown" + i)) {
+                falsePositives++;
+            }
+        }
+
+        //then
+        for (int i = 0; i < 100_000; i++) {
+            assertTrue(bloomFilter.mightContain("known" + i));
+        }
+        assertTrue(falsePositives < 2_000, "false positives : " + falsePositives);
+        assertEquals(0.01, bloomFilter.expectedFpp(), 0.005);
+        assertTrue(bloomFilter.bytes() < 200_000);
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.account.service;
+
+import com.example.account.dto.FailedTransaction;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FailedTransactionRecorderTest {
+    @Mock
+    private TransactionService transactionService;
+
+    @Test
+    @DisplayName("queue 가 가득 차면 overflow 로 세고 바로 저장")
+    void overflowWritesSynchronously() {
+        //given
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        FailedTransactionRecorder recorder =
+                new FailedTransactionRecorder(transactionService, meterRegistry, 1, 100);
+
+        //when
+        recorder.record(USE, "1000000000", 100L);
+        recorder.record(USE, "1000000001", 200L);
+
+        //then
+        ArgumentCaptor<List<FailedTransaction>> captor = ArgumentCaptor.forClass(List.class);
+        verify(transactionService, times(1)).saveFailedTransactions(captor.capture());
+        assertEquals("1000000001", captor.getValue().get(0).getAccountNumber());
+        assertEquals(1.0,
+                meterRegistry.counter("account.failed_transaction.overflow").count());
+    }
+
+    @Test
+    @DisplayName("종료할 때 queue 에 남은 기록을 batch 로 모두 저장")
+    void destroyFlushesRemaining() throws Exception {
+        //given
+        FailedTransactionRecorder recorder = new FailedTransactionRecorder(
+                transactionService, new SimpleMeterRegistry(), 100, 2);
+        recorder.record(USE, "1000000000", 100L);
+        recorder.record(CANCEL, "1000000000", 100L);
+        recorder.record(USE, "1000000001", 300L);
+
+        //when
+        recorder.destroy();
+
+        //then
+        ArgumentCaptor<List<FailedTransaction>> captor = ArgumentCaptor.forClass(List.class);
+        verify(transactionService, times(2)).saveFailedTransactions(captor.capture());
+        assertEquals(2, captor.getAllValues().get(0).size());
+        assertEquals(1, captor.getAllValues().get(1).size());
+    }
+
+    @Test
+    @DisplayName("저장 실패는 삼키고 dropped 로 센다")
+    void writeFailureCountsDropped() throws Exception {
+        //given
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        FailedTransactionRecorder recorder =
+                new FailedTransactionRecorder(transactionService, meterRegistry, 100, 100);
+        doThrow(new IllegalStateException("db down"))
+                .when(transactionService).saveFailedTransactions(anyList());
+        recorder.record(USE, "1000000000", 100L);
+
+        //when
+        recorder.destroy();
+
+        //then
+        assertEquals(1.0,
+                meterRegistry.counter("account.failed_transaction.dropped").count());
+    }
+}
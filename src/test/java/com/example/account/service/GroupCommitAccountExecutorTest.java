@@ -0,0 +1,108 @@
+package com.example.account.service;
+
+import com.example.account.dto.UseBalance;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionSystemException;
+
+import javax.persistence.EntityManager;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GroupCommitAccountExecutorTest {
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private GroupCommitAccountExecutor executor;
+
+    private final UseBalance.Request request = new UseBalance.Request(1L, "1000000000", 100L);
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        executor.destroy();
+    }
+
+    @Test
+    @DisplayName("함께 들어온 요청은 한 트랜잭션으로 커밋하고 각자 결과를 받는다")
+    void commitsBatchInOneTransaction() throws Exception {
+        //given
+        executor = new GroupCommitAccountExecutor(transactionManager, entityManager, 64, 50, 100);
+        CompletableFuture<Integer> first = executor.submit(request, () -> 1);
+        CompletableFuture<Integer> failed = executor.submit(request, () -> {
+            throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+        });
+        CompletableFuture<Integer> second = executor.submit(request, () -> 2);
+
+        //when
+        executor.afterPropertiesSet();
+
+        //then
+        assertEquals(1, first.get(5, TimeUnit.SECONDS));
+        assertEquals(2, second.get(5, TimeUnit.SECONDS));
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> failed.get(5, TimeUnit.SECONDS));
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE,
+                ((AccountException) exception.getCause()).getErrorCode());
+        verify(transactionManager, times(1)).getTransaction(any());
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    @DisplayName("묶음 커밋이 실패하면 성공했던 요청만 하나씩 다시 커밋")
+    void retriesOneByOneWhenBatchCommitFails() throws Exception {
+        //given
+        executor = new GroupCommitAccountExecutor(transactionManager, entityManager, 64, 50, 100);
+        doThrow(new TransactionSystemException("commit failed"))
+                .doNothing()
+                .when(transactionManager).commit(any());
+        AtomicInteger runs = new AtomicInteger();
+        CompletableFuture<Integer> first = executor.submit(request, runs::incrementAndGet);
+        CompletableFuture<Integer> failed = executor.submit(request, () -> {
+            throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+        });
+        CompletableFuture<Integer> second = executor.submit(request, runs::incrementAndGet);
+
+        //when
+        executor.afterPropertiesSet();
+
+        //then
+        assertTrue(first.get(5, TimeUnit.SECONDS) > 2);
+        assertTrue(second.get(5, TimeUnit.SECONDS) > 2);
+        assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+        assertEquals(4, runs.get());
+        verify(transactionManager, times(3)).getTransaction(any());
+        verify(transactionManager, times(3)).commit(any());
+    }
+
+    @Test
+    @DisplayName("queue 가 가득 차면 바로 실패")
+    void rejectsWhenSaturated() {
+        //given
+        executor = new GroupCommitAccountExecutor(transactionManager, entityManager, 64, 50, 1);
+        executor.submit(request, () -> 1);
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> executor.submit(request, () -> 2));
+
+        //then
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.account.service;
+
+import com.example.account.dto.UseBalance;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RBucket;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.misc.CompletableFutureWrapper;
+
+import java.security.MessageDigest;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.account.type.TransactionResultType.S;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyCacheTest {
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RBucket<Object> bucket;
+
+    @Mock
+    private RScript script;
+
+    private static final UseBalance.Request REQUEST = new UseBalance.Request(1L, "1000000000", 1000L);
+    private static final List<Object> KEYS = Collections.singletonList("IDEM:use:1000000000:key-1");
+
+    private SimpleMeterRegistry meterRegistry;
+    private IdempotencyCache idempotencyCache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        given(redissonClient.getScript(any())).willReturn(script);
+        idempotencyCache = new IdempotencyCache(redissonClient,
+                new ObjectMapper().findAndRegisterModules(), meterRegistry, 60, 5, 100);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        idempotencyCache.destroy();
+    }
+
+    @Test
+    @DisplayName("같은 키로 다시 오면 action 을 실행하지 않고 첫 응답을 돌려줌")
+    void replaySuccess() throws Exception {
+        //given
+        given(redissonClient.getBucket(anyString(), any())).willReturn(bucket);
+        given(bucket.trySet(any(), anyLong(), any())).willReturn(true);
+        given(script.evalShaAsync(any(), any(), any(), anyList(), any()))
+                .willReturn(new CompletableFutureWrapper<>(true));
+        AtomicInteger executed = new AtomicInteger();
+
+        //when
+        UseBalance.Response first = idempotencyCache.execute("use:1000000000", "key-1", REQUEST,
+                UseBalance.Response.class, () -> {
+                    executed.incrementAndGet();
+                    return CompletableFuture.completedFuture(UseBalance.Response.builder()
+                            .accountNumber("1000000000")
+                            .transactionResult(S)
+                            .transactionId("transactionId")
+                            .amount(1000L)
+                            .build());
+                }).get();
+        UseBalance.Response replayed = idempotencyCache.execute("use:1000000000", "key-1", REQUEST,
+                UseBalance.Response.class, () -> {
+                    executed.incrementAndGet();
+                    return CompletableFuture.completedFuture(null);
+                }).get();
+
+        //then
+        assertEquals(1, executed.get());
+        assertEquals("transactionId", first.getTransactionId());
+        assertEquals("transactionId", replayed.getTransactionId());
+        verify(script, times(1)).evalShaAsync(any(), any(), any(), eq(KEYS),
+                eq("P|" + fingerprint(REQUEST)), startsWith("S|"), any());
+        assertEquals(1.0, meterRegistry.counter("account.idempotency.replay").count());
+    }
+
+    @Test
+    @DisplayName("다른 서버가 남긴 에러 결과를 그대로 돌려줌")
+    void replayStoredError() throws Exception {
+        //given
+        given(redissonClient.getBucket(anyString(), any())).willReturn(bucket);
+        given(bucket.trySet(any(), anyLong(), any())).willReturn(false);
+        given(bucket.get()).willReturn("E|" + fingerprint(REQUEST) + "|AMOUNT_EXCEED_BALANCE");
+
+        //when
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> idempotencyCache.execute("use:1000000000", "key-1", REQUEST,
+                        UseBalance.Response.class, () -> fail("must not execute")).get());
+
+        //then
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE,
+                ((AccountException) exception.getCause()).getErrorCode());
+    }
+
+    @Test
+    @DisplayName("같은 키로 본문이 다른 요청이 오면 첫 결과 대신 IDEMPOTENCY_KEY_REUSED")
+    void rejectReusedKeyWithDifferentBody() throws Exception {
+        //given
+        given(redissonClient.getBucket(anyString(), any())).willReturn(bucket);
+        given(bucket.trySet(any(), anyLong(), any())).willReturn(false);
+        given(bucket.get()).willReturn("S|" + fingerprint(REQUEST) + "|{}");
+        UseBalance.Request other = new UseBalance.Request(1L, "1000000000", 2000L);
+
+        //when
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> idempotencyCache.execute("use:1000000000", "key-1", other,
+                        UseBalance.Response.class, () -> fail("must not execute")).get());
+
+        //then
+        assertEquals(ErrorCode.IDEMPOTENCY_KEY_REUSED,
+                ((AccountException) exception.getCause()).getErrorCode());
+    }
+
+    @Test
+    @DisplayName("처리 중 표시는 짧은 lease 로 잡고 결과는 ttl 로 보관")
+    void claimWithLeaseAndStoreWithTtl() throws Exception {
+        //given
+        given(redissonClient.getBucket(anyString(), any())).willReturn(bucket);
+        given(bucket.trySet(any(), anyLong(), any())).willReturn(true);
+        given(script.evalShaAsync(any(), any(), any(), anyList(), any()))
+                .willReturn(new CompletableFutureWrapper<>(true));
+
+        //when
+        idempotencyCache.execute("use:1000000000", "key-1", REQUEST, UseBalance.Response.class,
+                () -> CompletableFuture.completedFuture(UseBalance.Response.builder().build())).get();
+
+        //then
+        verify(bucket).trySet(eq("P|" + fingerprint(REQUEST)), eq(5000L), eq(TimeUnit.MILLISECONDS));
+        verify(script).evalShaAsync(eq(RScript.Mode.READ_WRITE), any(), eq(RScript.ReturnType.BOOLEAN),
+                eq(KEYS), eq("P|" + fingerprint(REQUEST)),
+                startsWith("S|" + fingerprint(REQUEST) + "|"), eq("60000"));
+    }
+
+    @Test
+    @DisplayName("처리 중에는 자기 표시일 때만 lease 를 연장")
+    void renewLeaseWhilePending() throws Exception {
+        //given
+        idempotencyCache.destroy();
+        idempotencyCache = new IdempotencyCache(redissonClient,
+                new ObjectMapper().findAndRegisterModules(), meterRegistry, 60, 1, 100);
+        given(redissonClient.getBucket(anyString(), any())).willReturn(bucket);
+        given(bucket.trySet(any(), anyLong(), any())).willReturn(true);
+        given(script.evalShaAsync(any(), any(), any(), anyList(), any()))
+                .willReturn(new CompletableFutureWrapper<>(true));
+        CompletableFuture<UseBalance.Response> action = new CompletableFuture<>();
+
+        //when
+        CompletableFuture<UseBalance.Response> result = idempotencyCache.execute("use:1000000000", "key-1",
+                REQUEST, UseBalance.Response.class, () -> action);
+        Thread.sleep(800);
+        action.complete(UseBalance.Response.builder().build());
+        result.get();
+
+        //then
+        verify(script, atLeastOnce()).evalShaAsync(any(), any(), any(), eq(KEYS),
+                eq("P|" + fingerprint(REQUEST)), eq("1000"));
+    }
+
+    @Test
+    @DisplayName("lease 를 놓쳐 결과를 남기지 못하면 near cache 에서도 빼서 다시 Redis 를 봄")
+    void dropNearCacheWhenLeaseLost() throws Exception {
+        //given
+        given(redissonClient.getBucket(anyString(), any())).willReturn(bucket);
+        given(bucket.trySet(any(), anyLong(), any())).willReturn(true, false);
+        given(script.evalShaAsync(any(), any(), any(), anyList(), any()))
+                .willReturn(new CompletableFutureWrapper<>(false));
+        given(bucket.get()).willReturn("E|" + fingerprint(REQUEST) + "|AMOUNT_EXCEED_BALANCE");
+
+        //when
+        idempotencyCache.execute("use:1000000000", "key-1", REQUEST, UseBalance.Response.class,
+                () -> CompletableFuture.completedFuture(UseBalance.Response.builder().build())).get();
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> idempotencyCache.execute("use:1000000000", "key-1", REQUEST,
+                        UseBalance.Response.class, () -> fail("must not execute")).get());
+
+        //then
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE,
+                ((AccountException) exception.getCause()).getErrorCode());
+    }
+
+    @Test
+    @DisplayName("lock 실패는 보관하지 않아 재시도가 다시 실행됨")
+    void retryableErrorIsNotStored() throws Exception {
+        //given
+        given(redissonClient.getBucket(anyString(), any())).willReturn(bucket);
+        given(bucket.trySet(any(), anyLong(), any())).willReturn(true);
+
+        //when
+        assertThrows(ExecutionException.class,
+                () -> idempotencyCache.execute("use:1000000000", "key-1", REQUEST, UseBalance.Response.class,
+                        () -> CompletableFuture.failedFuture(
+                                new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK))).get());
+
+        //then
+        verify(script).evalShaAsync(any(), any(), any(), eq(KEYS), eq("P|" + fingerprint(REQUEST)));
+        verify(script, never()).evalShaAsync(any(), any(), any(), anyList(), any(), any(), any());
+    }
+
+    private static String fingerprint(Object request) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                .digest(new ObjectMapper().findAndRegisterModules().writeValueAsBytes(request)));
+    }
+}
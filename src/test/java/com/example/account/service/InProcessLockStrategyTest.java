@@ -0,0 +1,42 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InProcessLockStrategyTest {
+    private final InProcessLockStrategy inProcessLockStrategy = new InProcessLockStrategy();
+
+    @Test
+    void failGetLock_heldByOtherThread() {
+        //given
+        inProcessLockStrategy.lock("123");
+
+        //when
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> CompletableFuture.runAsync(
+                        () -> inProcessLockStrategy.lock("123")).get());
+
+        //then
+        AccountException cause = (AccountException) exception.getCause();
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, cause.getErrorCode());
+    }
+
+    @Test
+    void successGetLock_afterUnlock() {
+        //given
+        inProcessLockStrategy.lock("123");
+
+        //when
+        inProcessLockStrategy.unlock("123");
+
+        //then
+        assertDoesNotThrow(() -> CompletableFuture.runAsync(
+                () -> inProcessLockStrategy.lock("123")).get());
+    }
+}
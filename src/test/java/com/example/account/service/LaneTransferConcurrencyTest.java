@@ -0,0 +1,95 @@
+package com.example.account.service;
+
+import com.example.account.dto.AccountDto;
+import com.example.account.dto.Transfer;
+import com.example.account.dto.UseBalance;
+import com.example.account.repository.AccountRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * lane 모드에서 이체는 출금 계좌의 lane 에서 돌므로 입금 계좌의 lane 작업과 동시에 같은 계좌를 고칠 수 있다.
+ */
+@SpringBootTest(properties = {
+        "account.concurrency.mode=lane",
+        "spring.redis.port=6381"
+})
+@AutoConfigureMockMvc
+class LaneTransferConcurrencyTest {
+    private static final int ROUNDS = 50;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Test
+    @DisplayName("입금 계좌 사용과 동시에 이체해도 500 없이 성공하거나 ACCOUNT_TRANSACTION_LOCK, 잔액은 성공한 거래만 반영")
+    void transferWhileUsingTarget() throws Exception {
+        //given
+        AccountDto from = accountService.createAccount(1L, 100000L);
+        AccountDto to = accountService.createAccount(1L, 100000L);
+
+        //when
+        List<MvcResult> transfers = new ArrayList<>();
+        List<MvcResult> uses = new ArrayList<>();
+        for (int i = 0; i < ROUNDS; i++) {
+            transfers.add(submit("/transaction/transfer",
+                    new Transfer.Request(1L, from.getAccountNumber(), to.getAccountNumber(), 100L)));
+            uses.add(submit("/transaction/use",
+                    new UseBalance.Request(1L, to.getAccountNumber(), 10L)));
+        }
+
+        //then
+        long transferred = 100L * succeeded(transfers);
+        long used = 10L * succeeded(uses);
+        assertEquals(100000L + transferred - used,
+                accountRepository.findByAccountNumber(to.getAccountNumber()).get().getBalance());
+        assertEquals(100000L - transferred,
+                accountRepository.findByAccountNumber(from.getAccountNumber()).get().getBalance());
+    }
+
+    private MvcResult submit(String url, Object request) throws Exception {
+        return mockMvc.perform(post(url)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andReturn();
+    }
+
+    //실패는 다시 시도하면 되는 lock 충돌만 허용
+    private int succeeded(List<MvcResult> results) throws Exception {
+        int succeeded = 0;
+        for (MvcResult result : results) {
+            JsonNode body = objectMapper.readTree(mockMvc.perform(asyncDispatch(result))
+                    .andReturn().getResponse().getContentAsString());
+            if (body.has("errorCode")) {
+                assertEquals("ACCOUNT_TRANSACTION_LOCK", body.get("errorCode").asText());
+            } else {
+                succeeded++;
+            }
+        }
+        return succeeded;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.account.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencySimulatorTest {
+
+    @Test
+    @DisplayName("기본값 off - 바로 완료")
+    void disabledCompletesImmediately() {
+        //given
+        LatencySimulator latencySimulator = new LatencySimulator(false, 3000L, 1);
+
+        //when
+        CompletableFuture<Void> delay = latencySimulator.delay();
+
+        //then
+        assertTrue(delay.isDone());
+    }
+
+    @Test
+    @DisplayName("지연 요청이 많아도 호출 스레드를 막지 않고 동시에 기다린다")
+    void delaysDoNotBlockCaller() throws Exception {
+        //given
+        LatencySimulator latencySimulator = new LatencySimulator(true, 300L, 2);
+        List<CompletableFuture<Void>> delays = new ArrayList<>();
+
+        //when
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < 200; i++) {
+            delays.add(latencySimulator.delay());
+        }
+        long submitMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        CompletableFuture.allOf(delays.toArray(new CompletableFuture[0]))
+                .get(5, TimeUnit.SECONDS);
+        long totalMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+
+        //then
+        assertTrue(submitMillis < 300L);
+        assertTrue(totalMillis < 2000L);
+        latencySimulator.destroy();
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.account.service;
 
+import com.example.account.dto.Transfer;
 import com.example.account.dto.UseBalance;
 import com.example.account.exception.AccountException;
 import com.example.account.type.ErrorCode;
@@ -7,12 +8,14 @@ import org.aspectj.lang.ProceedingJoinPoint;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -51,4 +54,20 @@ class LockAopAspectTest {
         assertEquals("1234",unLockArgumentCaptor.getValue());
 
     }
-}
\ No newline at end of file
+
+    @Test
+    void lockTransferAccountsInOrder() throws Throwable {
+        //given
+        Transfer.Request request= new Transfer.Request(1L,"2000000000","1000000000",1000L);
+        InOrder inOrder=inOrder(lockService);
+
+        //when
+        lockAopAspect.aroundMethod(proceedingJoinPoint,request);
+
+        //then
+        inOrder.verify(lockService).lock("1000000000");
+        inOrder.verify(lockService).lock("2000000000");
+        inOrder.verify(lockService).unlock("2000000000");
+        inOrder.verify(lockService).unlock("1000000000");
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.account.service;
+
+import com.example.account.dto.LockHotKey;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LockMetricsTest {
+
+    @Test
+    @DisplayName("stripe 별로 센 hot key 를 합쳐 count 순으로 돌려줌")
+    void hotKeysMergedAcrossStripes() {
+        //given
+        LockMetrics lockMetrics = new LockMetrics(new SimpleMeterRegistry(), 256, 1);
+        for (int i = 0; i < 100; i++) {
+            lockMetrics.recordAttempt("1000000001");
+            if (i % 2 == 0) {
+                lockMetrics.recordAttempt("1000000002");
+            }
+            lockMetrics.recordAttempt("2" + i);
+        }
+
+        //when
+        List<LockHotKey> top = lockMetrics.getHotKeys(2);
+
+        //then
+        assertEquals(2, top.size());
+        assertEquals("ACLK:1000000001", top.get(0).getKey());
+        assertEquals(100, top.get(0).getCount());
+        assertEquals("ACLK:1000000002", top.get(1).getKey());
+    }
+}
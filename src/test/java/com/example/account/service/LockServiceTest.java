@@ -7,49 +7,55 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.redisson.api.RLock;
-import org.redisson.api.RedissonClient;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.*;
-import static org.mockito.BDDMockito.given;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
 class LockServiceTest {
     @Mock
-    private RedissonClient redissonClient;
+    private LockStrategy lockStrategy;
 
     @Mock
-    private RLock rLock;
+    private LockMetrics lockMetrics;
 
     @InjectMocks
     private LockService lockService;
 
     @Test
-    void successGetLock() throws InterruptedException {
+    void lockAndUnlockWithStrategy() {
         //given
-        given(redissonClient.getLock(anyString()))
-                .willReturn(rLock);
-        given(rLock.tryLock(anyLong(),anyLong(),any()))
-                .willReturn(true);
-
         //when
-        assertDoesNotThrow(()->lockService.lock("123"));
+        lockService.lock("123");
+        lockService.unlock("123");
 
         //then
+        verify(lockStrategy,times(1)).lock("123");
+        verify(lockStrategy,times(1)).unlock("123");
+        verify(lockMetrics,times(1)).recordAttempt("123");
+        verify(lockMetrics,times(1)).recordAcquire(anyLong(),eq(true));
+        verify(lockMetrics,times(1)).recordHold(anyLong());
     }
 
     @Test
-    void failGetLock() throws InterruptedException {
+    void failGetLock_recordTimeout() {
         //given
-        given(redissonClient.getLock(anyString()))
-                .willReturn(rLock);
-        given(rLock.tryLock(anyLong(),anyLong(),any()))
-                .willReturn(false);
+        willThrow(new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK))
+                .given(lockStrategy).lock("123");
+
         //when
         AccountException exception=assertThrows(AccountException.class,
                 ()->lockService.lock("123"));
+
         //then
         assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK,exception.getErrorCode());
+        verify(lockMetrics,times(1)).recordAcquire(anyLong(),eq(false));
+        verify(lockMetrics,times(1)).recordTimeout();
+        verify(lockMetrics,never()).recordHold(anyLong());
     }
-}
\ No newline at end of file
+}
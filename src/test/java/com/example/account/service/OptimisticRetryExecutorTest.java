@@ -0,0 +1,71 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OptimisticRetryExecutorTest {
+    private final OptimisticRetryExecutor optimisticRetryExecutor =
+            new OptimisticRetryExecutor(3, 0L);
+
+    @Test
+    @DisplayName("version 충돌 후 재시도 성공")
+    void retryUntilSuccess() throws Throwable {
+        //given
+        AtomicInteger tried = new AtomicInteger();
+
+        //when
+        String result = optimisticRetryExecutor.execute(() -> {
+            if (tried.incrementAndGet() < 3) {
+                throw new ObjectOptimisticLockingFailureException("Account", 1L);
+            }
+            return "success";
+        });
+
+        //then
+        assertEquals("success", result);
+        assertEquals(3, tried.get());
+    }
+
+    @Test
+    @DisplayName("재시도 횟수 초과 - 계좌 사용 중")
+    void retryExhausted() {
+        //given
+        AtomicInteger tried = new AtomicInteger();
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> optimisticRetryExecutor.execute(() -> {
+                    tried.incrementAndGet();
+                    throw new ObjectOptimisticLockingFailureException("Account", 1L);
+                }));
+
+        //then
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+        assertEquals(3, tried.get());
+    }
+
+    @Test
+    @DisplayName("다른 예외는 재시도하지 않음")
+    void notRetryAccountException() {
+        //given
+        AtomicInteger tried = new AtomicInteger();
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> optimisticRetryExecutor.execute(() -> {
+                    tried.incrementAndGet();
+                    throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+                }));
+
+        //then
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, exception.getErrorCode());
+        assertEquals(1, tried.get());
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.account.service;
+
+import com.example.account.dto.AccountDto;
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "account.concurrency.mode=redis-lua",
+        "spring.redis.port=6380"
+})
+class RedisBalanceStoreTest {
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private RedisBalanceStore redisBalanceStore;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    @DisplayName("Lua 스크립트로 차감하고 writer 가 DB 에 반영")
+    void useBalance_redisLua() throws InterruptedException {
+        //given
+        AccountDto account = accountService.createAccount(1L, 1000L);
+
+        //when
+        TransactionDto transaction = transactionService.useBalance(1L, account.getAccountNumber(), 300L);
+
+        //then
+        assertEquals(700L, transaction.getBalanceSnapshot());
+        assertEquals(700L, redisBalanceStore.balanceOf(account.getAccountNumber()));
+        assertEquals(transaction.getTransactionId(),
+                transactionService.queryTransaction(transaction.getTransactionId()).getTransactionId());
+
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while (transactionRepository.findByTransactionId(transaction.getTransactionId()).isEmpty()
+                && System.currentTimeMillis() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(20);
+        }
+        assertTrue(transactionRepository.findByTransactionId(transaction.getTransactionId()).isPresent());
+        assertEquals(700L, accountRepository.findByAccountNumber(account.getAccountNumber())
+                .get().getBalance());
+    }
+
+    @Test
+    @DisplayName("Lua 스크립트 검증 실패 - 잔액 부족, 소유주 불일치")
+    void useBalance_redisLuaFailed() {
+        //given
+        AccountDto account = accountService.createAccount(1L, 100L);
+
+        //when
+        AccountException exceed = assertThrows(AccountException.class,
+                () -> transactionService.useBalance(1L, account.getAccountNumber(), 1000L));
+        AccountException unMatch = assertThrows(AccountException.class,
+                () -> transactionService.useBalance(2L, account.getAccountNumber(), 10L));
+
+        //then
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, exceed.getErrorCode());
+        assertEquals(ErrorCode.USER_ACCOUNT_UN_MATCH, unMatch.getErrorCode());
+        assertEquals(100L, redisBalanceStore.balanceOf(account.getAccountNumber()));
+    }
+
+    @Test
+    @DisplayName("다른 서버가 더 최근 거래를 먼저 반영했으면 늦게 온 이전 잔액으로 되돌리지 않음")
+    void advanceBalanceIgnoresOlderRecord() {
+        //given
+        AccountDto account = accountService.createAccount(1L, 1000L);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        //when
+        int newer = transactionTemplate.execute(status ->
+                accountRepository.advanceBalance(account.getAccountNumber(), 500L, 2L));
+        int older = transactionTemplate.execute(status ->
+                accountRepository.advanceBalance(account.getAccountNumber(), 900L, 1L));
+
+        //then
+        assertEquals(1, newer);
+        assertEquals(0, older);
+        assertEquals(500L, accountRepository.findBalanceByAccountNumber(account.getAccountNumber()).get());
+    }
+}
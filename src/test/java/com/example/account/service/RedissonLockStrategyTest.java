@@ -0,0 +1,96 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class RedissonLockStrategyTest {
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RLock rLock;
+
+    @Mock
+    private LockMetrics lockMetrics;
+
+    @InjectMocks
+    private RedissonLockStrategy redissonLockStrategy;
+
+    @Test
+    void successGetLock() throws InterruptedException {
+        //given
+        given(redissonClient.getLock(anyString()))
+                .willReturn(rLock);
+        given(rLock.tryLock(anyLong(),anyLong(),any()))
+                .willReturn(true);
+
+        //when
+        assertDoesNotThrow(()->redissonLockStrategy.lock("123"));
+
+        //then
+    }
+
+    @Test
+    void failGetLock() throws InterruptedException {
+        //given
+        given(redissonClient.getLock(anyString()))
+                .willReturn(rLock);
+        given(rLock.tryLock(anyLong(),anyLong(),any()))
+                .willReturn(false);
+        //when
+        AccountException exception=assertThrows(AccountException.class,
+                ()->redissonLockStrategy.lock("123"));
+        //then
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK,exception.getErrorCode());
+    }
+
+    @Test
+    void failGetLock_releaseLocalLock() throws Exception {
+        //given
+        given(redissonClient.getLock(anyString()))
+                .willReturn(rLock);
+        given(rLock.tryLock(anyLong(),anyLong(),any()))
+                .willReturn(false, true);
+        assertThrows(AccountException.class,
+                ()->redissonLockStrategy.lock("123"));
+
+        //when
+        //then
+        assertDoesNotThrow(()->CompletableFuture
+                .runAsync(()->redissonLockStrategy.lock("123")).get());
+    }
+
+    @Test
+    void unlockReleaseLocalLock() throws Exception {
+        //given
+        given(redissonClient.getLock(anyString()))
+                .willReturn(rLock);
+        given(rLock.tryLock(anyLong(),anyLong(),any()))
+                .willReturn(true);
+        redissonLockStrategy.lock("123");
+
+        //when
+        redissonLockStrategy.unlock("123");
+
+        //then
+        verify(rLock,times(1)).unlock();
+        assertDoesNotThrow(()->CompletableFuture
+                .runAsync(()->redissonLockStrategy.lock("123")).get());
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.account.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakeTransactionIdGeneratorTest {
+
+    @Test
+    @DisplayName("생성 순서대로 문자열 정렬, 길이 고정")
+    void idsAreTimeOrdered() {
+        //given
+        SnowflakeTransactionIdGenerator generator = new SnowflakeTransactionIdGenerator(1);
+
+        //when
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            ids.add(generator.generate());
+        }
+
+        //then
+        for (int i = 1; i < ids.size(); i++) {
+            assertEquals(13, ids.get(i).length());
+            assertTrue(ids.get(i - 1).compareTo(ids.get(i)) < 0);
+        }
+    }
+
+    @Test
+    @DisplayName("여러 서버, 여러 스레드에서 생성해도 중복 없음")
+    void uniqueAcrossNodesAndThreads() throws Exception {
+        //given
+        List<SnowflakeTransactionIdGenerator> nodes = List.of(
+                new SnowflakeTransactionIdGenerator(0),
+                new SnowflakeTransactionIdGenerator(1));
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        //when
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            SnowflakeTransactionIdGenerator node = nodes.get(t % nodes.size());
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 20000; i++) {
+                    ids.add(node.generate());
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        //then
+        assertEquals(8 * 20000, ids.size());
+    }
+
+    @Test
+    void invalidNodeId() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new SnowflakeTransactionIdGenerator(1024));
+    }
+}
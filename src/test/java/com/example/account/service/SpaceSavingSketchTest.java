@@ -0,0 +1,30 @@
+package com.example.account.service;
+
+import com.example.account.dto.LockHotKey;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpaceSavingSketchTest {
+
+    @Test
+    void topKeysWithinCapacity() {
+        //given
+        SpaceSavingSketch sketch = new SpaceSavingSketch(4);
+        for (int i = 0; i < 100; i++) {
+            sketch.offer("ACLK:hot");
+            sketch.offer("ACLK:cold" + i);
+        }
+
+        //when
+        List<LockHotKey> top = sketch.top(1);
+
+        //then
+        assertEquals(1, top.size());
+        assertEquals("ACLK:hot", top.get(0).getKey());
+        assertTrue(top.get(0).getCount() - top.get(0).getError() <= 100);
+        assertEquals(4, sketch.top(10).size());
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.account.service;
+
+import com.example.account.dto.TransactionDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionDtoCacheTest {
+
+    @Test
+    @DisplayName("조회할 때마다 새 객체를 돌려주고 hit / miss 를 셈")
+    void getReturnsCopy() {
+        //given
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        TransactionDtoCache cache = new TransactionDtoCache(meterRegistry, 1024 * 1024);
+        cache.put(transaction("transactionId"));
+
+        //when
+        TransactionDto first = cache.get("transactionId");
+        first.setAmount(0L);
+        TransactionDto second = cache.get("transactionId");
+        TransactionDto missing = cache.get("unknown");
+
+        //then
+        assertEquals(1000L, second.getAmount());
+        assertNotSame(first, second);
+        assertNull(missing);
+        assertEquals(2.0, meterRegistry.counter("account.transaction_cache.hit").count());
+        assertEquals(1.0, meterRegistry.counter("account.transaction_cache.miss").count());
+    }
+
+    @Test
+    @DisplayName("max-bytes 를 넘으면 가장 오래 안 쓰인 거래부터 내보냄")
+    void evictLeastRecentlyUsed() {
+        //given
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        TransactionDtoCache cache = new TransactionDtoCache(meterRegistry, 600);
+        cache.put(transaction("first"));
+        cache.put(transaction("second"));
+        cache.get("first");
+
+        //when
+        cache.put(transaction("third"));
+
+        //then
+        assertNotNull(cache.get("first"));
+        assertNull(cache.get("second"));
+        assertNotNull(cache.get("third"));
+        assertTrue(cache.usedBytes() <= 600);
+        assertEquals(1.0, meterRegistry.counter("account.transaction_cache.eviction").count());
+    }
+
+    private static TransactionDto transaction(String transactionId) {
+        return TransactionDto.builder()
+                .accountNumber("1000000012")
+                .transactionType(USE)
+                .transactionResultType(S)
+                .amount(1000L)
+                .balanceSnapshot(9000L)
+                .transactionId(transactionId)
+                .transactedAt(LocalDateTime.now())
+                .build();
+    }
+}
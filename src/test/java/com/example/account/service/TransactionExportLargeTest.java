@@ -0,0 +1,112 @@
+package com.example.account.service;
+
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.AccountStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.OutputStream;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 수백만 건 export 를 작은 heap 에서 돌린다. (./gradlew exportTest, -Xmx128m)
+ * DB 가 heap 을 차지하지 않도록 H2 파일 모드에 lazy 조회로 붙는다.
+ */
+@Tag("export")
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:file:./build/export-test/db;LAZY_QUERY_EXECUTION=TRUE",
+        "spring.jpa.properties.hibernate.show_sql=false",
+        "spring.jpa.properties.hibernate.format_sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TransactionExportLargeTest {
+    private static final int ROWS = 3_000_000;
+    private static final int INSERT_BATCH = 10_000;
+    private static final long ID_BASE = 1_000_000_000L;
+    private static final LocalDateTime DAY = LocalDateTime.of(2026, 10, 1, 0, 0);
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    @DisplayName("300만 건을 메모리에 모으지 않고 끝까지 씀")
+    void exportMillionsOfRows() {
+        //given
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        Long accountId = insertRows(); //batch 마다 커밋
+        TransactionExportService transactionExportService = new TransactionExportService(
+                transactionRepository, new ObjectMapper().findAndRegisterModules());
+        AtomicLong bytes = new AtomicLong();
+        AtomicLong lines = new AtomicLong();
+        OutputStream counting = new OutputStream() {
+            @Override
+            public void write(int b) {
+                bytes.incrementAndGet();
+                if (b == '\n') {
+                    lines.incrementAndGet();
+                }
+            }
+        };
+
+        //when
+        Long written = transactionTemplate.execute(status -> {
+            try {
+                return transactionExportService.export(DAY, DAY.plusDays(1), null, counting);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        //then
+        assertNotNull(accountId);
+        assertEquals(ROWS, written);
+        assertEquals(ROWS, lines.get());
+        assertTrue(bytes.get() > Runtime.getRuntime().maxMemory(),
+                "export 크기가 heap 보다 커야 의미가 있음");
+    }
+
+    private Long insertRows() {
+        jdbcTemplate.update("delete from transaction");
+        jdbcTemplate.update("delete from account where account_number = '9000000000'");
+        Long userId = jdbcTemplate.queryForObject("select min(id) from account_user", Long.class);
+        jdbcTemplate.update("insert into account (id, account_user_id, account_number, account_status," +
+                " balance, version) values (?, ?, '9000000000', ?, 0, 0)",
+                ID_BASE, userId, AccountStatus.IN_USE.name());
+
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH);
+        for (int i = 0; i < ROWS; i++) {
+            batch.add(new Object[]{ID_BASE + i, ID_BASE, 100L, 1000L, "export" + i,
+                    Timestamp.valueOf(DAY.plusNanos(i * 1000L))});
+            if (batch.size() == INSERT_BATCH) {
+                jdbcTemplate.batchUpdate("insert into transaction (id, account_id, amount," +
+                        " balance_snapshot, transaction_id, transaction_result_type," +
+                        " transaction_type, transacted_at) values (?, ?, ?, ?, ?, 'S', 'USE', ?)", batch);
+                batch.clear();
+            }
+        }
+        return ID_BASE;
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.domain.Transaction;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.AccountStatus;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class TransactionExportServiceTest {
+    private static final LocalDateTime DAY = LocalDateTime.of(2026, 10, 1, 0, 0);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private TransactionExportService transactionExportService;
+
+    @BeforeEach
+    void setUp() {
+        transactionExportService = new TransactionExportService(transactionRepository, objectMapper);
+        AccountUser user = entityManager.persist(AccountUser.builder().name("Pobi").build());
+        Account first = persistAccount(user, "1000000012");
+        Account second = persistAccount(user, "1000000013");
+        persistTransaction(first, "t1", DAY.plusHours(1));
+        persistTransaction(second, "t2", DAY.plusHours(2));
+        persistTransaction(first, "t3", DAY.plusDays(1)); //다음 날이라 빠짐
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    @DisplayName("기간 안의 거래를 한 줄에 하나씩 NDJSON 으로 씀")
+    void exportDay() throws Exception {
+        //given
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        //when
+        long written = transactionExportService.export(DAY, DAY.plusDays(1), null, outputStream);
+
+        //then
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, written);
+        assertEquals(2, lines.length);
+        JsonNode firstLine = objectMapper.readTree(lines[0]);
+        assertEquals("t1", firstLine.get("transactionId").asText());
+        assertEquals("1000000012", firstLine.get("accountNumber").asText());
+        assertEquals("t2", objectMapper.readTree(lines[1]).get("transactionId").asText());
+    }
+
+    @Test
+    @DisplayName("계좌번호를 주면 그 계좌 거래만 씀")
+    void exportAccount() throws Exception {
+        //given
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        //when
+        long written = transactionExportService.export(DAY, DAY.plusDays(2), "1000000012", outputStream);
+
+        //then
+        assertEquals(2, written);
+        assertFalse(outputStream.toString(StandardCharsets.UTF_8).contains("1000000013"));
+    }
+
+    private Account persistAccount(AccountUser user, String accountNumber) {
+        return entityManager.persist(Account.builder()
+                .accountUser(user)
+                .accountStatus(AccountStatus.IN_USE)
+                .accountNumber(accountNumber)
+                .balance(10000L)
+                .build());
+    }
+
+    private void persistTransaction(Account account, String transactionId, LocalDateTime transactedAt) {
+        entityManager.persist(Transaction.builder()
+                .account(account)
+                .transactionType(USE)
+                .transactionResultType(S)
+                .amount(1000L)
+                .balanceSnapshot(9000L)
+                .transactionId(transactionId)
+                .transactedAt(transactedAt)
+                .build());
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static com.example.account.type.TransactionType.CANCEL;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionJournalTest {
+    private static final int SEGMENT_BYTES = JournalRecord.SIZE * 4;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("저널에 남긴 잔액과 거래는 DB 반영 전에도 조회된다")
+    void debitTracksPendingState() {
+        //given
+        TransactionJournal journal = new TransactionJournal(directory.toString(), SEGMENT_BYTES);
+        journal.recover(0);
+        Account account = Account.builder().accountNumber("1000000000").balance(10000L).build();
+
+        //when
+        JournalRecord record = journal.debit("1000000000", 1000L, () -> 10000L, "0123456789ABC");
+
+        //then
+        assertEquals(0L, record.getSequence());
+        assertEquals(9000L, journal.balanceOf(account));
+        assertEquals(1000L, journal.findPending("0123456789ABC").get().getAmount());
+        assertEquals(10000L, journal.balanceOf(
+                Account.builder().accountNumber("1000000001").balance(10000L).build()));
+    }
+
+    @Test
+    @DisplayName("재시작하면 반영된 다음 위치부터 다시 읽고, segment 를 넘어가도 이어진다")
+    void recoverReplaysFromCheckpoint() throws Exception {
+        //given
+        TransactionJournal journal = new TransactionJournal(directory.toString(), SEGMENT_BYTES);
+        journal.recover(0);
+        for (int i = 0; i < 6; i++) {
+            journal.debit("1000000000", 100L, () -> 10000L, "tx" + i);
+        }
+        journal.projected(journal.read(0, 2), 2);
+        journal.destroy();
+
+        //when
+        TransactionJournal restarted = new TransactionJournal(directory.toString(), SEGMENT_BYTES);
+        restarted.recover(2);
+        JournalRecord next = restarted.credit("1000000000", 100L, () -> 10000L, "tx6");
+
+        //then
+        List<JournalRecord> records = restarted.read(2, 100);
+        assertEquals(5, records.size());
+        assertEquals("tx2", records.get(0).getTransactionId());
+        assertEquals(CANCEL, records.get(4).getTransactionType());
+        assertEquals(6L, next.getSequence());
+        assertEquals(9500L, next.getBalanceSnapshot()); //재생한 저널 잔액 9400 에서 이어짐
+        assertFalse(restarted.findPending("tx1").isPresent());
+        assertTrue(restarted.findPending("tx5").isPresent());
+    }
+
+    @Test
+    @DisplayName("쓰다 만 마지막 레코드는 버리고 그 자리부터 이어 쓴다")
+    void recoverStopsAtTornRecord() throws Exception {
+        //given
+        TransactionJournal journal = new TransactionJournal(directory.toString(), SEGMENT_BYTES);
+        journal.recover(0);
+        journal.debit("1000000000", 100L, () -> 10000L, "tx0");
+        journal.debit("1000000000", 100L, () -> 10000L, "tx1");
+        journal.destroy();
+        try (Stream<Path> files = Files.list(directory);
+             RandomAccessFile file = new RandomAccessFile(files.findFirst().get().toFile(), "rw")) {
+            file.seek(JournalRecord.SIZE + 24);
+            file.writeLong(1L); //crc 가 맞지 않게 amount 를 덮어씀
+        }
+
+        //when
+        TransactionJournal restarted = new TransactionJournal(directory.toString(), SEGMENT_BYTES);
+        restarted.recover(0);
+
+        //then
+        assertEquals(1, restarted.read(0, 100).size());
+        assertFalse(restarted.findPending("tx1").isPresent());
+        JournalRecord next = restarted.debit("1000000000", 100L, () -> 10000L, "tx2");
+        assertEquals(1L, next.getSequence());
+        assertEquals(9800L, next.getBalanceSnapshot());
+    }
+
+    @Test
+    @DisplayName("잔액 검증과 기록은 저널 안에서 함께 하고, 반영이 끝나면 DB 잔액을 다시 본다")
+    void debitChecksBalanceAndClearsAfterProjection() {
+        //given
+        TransactionJournal journal = new TransactionJournal(directory.toString(), SEGMENT_BYTES);
+        journal.recover(0);
+        AtomicInteger dbReads = new AtomicInteger();
+
+        //when
+        JournalRecord first = journal.debit("1000000000", 700L,
+                () -> { dbReads.incrementAndGet(); return 1000L; }, "tx0");
+        AccountException exception = assertThrows(AccountException.class,
+                () -> journal.debit("1000000000", 700L, () -> 1000L, "tx1"));
+        journal.projected(journal.read(0, 100), 1);
+
+        //then
+        assertEquals(300L, first.getBalanceSnapshot());
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, exception.getErrorCode());
+        assertEquals(1, dbReads.get());
+        assertFalse(journal.findPending("tx1").isPresent());
+        assertEquals(5000L, journal.balanceOf(
+                Account.builder().accountNumber("1000000000").balance(5000L).build()));
+    }
+}
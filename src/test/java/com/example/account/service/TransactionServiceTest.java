@@ -4,7 +4,11 @@ import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
 import com.example.account.domain.Transaction;
 import com.example.account.dto.CancelBalance;
+import com.example.account.dto.FailedTransaction;
 import com.example.account.dto.TransactionDto;
+import com.example.account.dto.TransactionHistory;
+import com.example.account.dto.Transfer;
+import com.example.account.dto.TransferDto;
 import com.example.account.exception.AccountException;
 import com.example.account.repository.AccountRepository;
 import com.example.account.repository.AccountUserRepository;
@@ -16,12 +20,19 @@ import com.example.account.type.TransactionType;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 import static com.example.account.type.TransactionResultType.F;
@@ -31,6 +42,9 @@ import static com.example.account.type.TransactionType.USE;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -47,6 +61,15 @@ class TransactionServiceTest {
     @Mock
     private AccountUserRepository accountUserRepository;
 
+    @Mock
+    private AccountUserCache accountUserCache;
+
+    @Mock
+    private TransactionIdGenerator transactionIdGenerator;
+
+    @Mock
+    private TransactionDtoCache transactionDtoCache;
+
     @InjectMocks
     private TransactionService transactionService;
 
@@ -57,7 +80,7 @@ class TransactionServiceTest {
                 .name("Pobi")
                 .build();
         user.setId(12L);
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.findById(anyLong()))
                 .willReturn(Optional.of(user));
         Account account = Account.builder()
                 .accountUser(user)
@@ -100,7 +123,7 @@ class TransactionServiceTest {
     @DisplayName("해당 유저 없음 - 잔액 사용 실패")
     void useBalance_UseNotFound() {
         //given
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.findById(anyLong()))
                 .willReturn(Optional.empty());
         //when
         AccountException exception=assertThrows(AccountException.class,
@@ -117,7 +140,7 @@ class TransactionServiceTest {
                 .name("Pobi")
                 .build();  //변수화
         user.setId(12L);
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.findById(anyLong()))
                 .willReturn(Optional.of(user));
 
         given(accountRepository.findByAccountNumber(anyString()))
@@ -147,7 +170,7 @@ class TransactionServiceTest {
                 .name("Marry")
                 .build();  //변수화
         Marry.setId(13L);
-        given(accountUserRepository.findById(anyLong()))  //확이 계좌 소유주는 pobi
+        given(accountUserCache.findById(anyLong()))  //확이 계좌 소유주는 pobi
                 .willReturn(Optional.of(Pobi));
 
         given(accountRepository.findByAccountNumber(anyString())) //근데 소유주가 Marry
@@ -175,7 +198,7 @@ class TransactionServiceTest {
                 .build();  //변수화
         Pobi.setId(12L);
 
-        given(accountUserRepository.findById(anyLong()))  //소유주는 pobi로 같지만
+        given(accountUserCache.findById(anyLong()))  //소유주는 pobi로 같지만
                 .willReturn(Optional.of(Pobi));
 
         given(accountRepository.findByAccountNumber(anyString()))
@@ -205,7 +228,7 @@ class TransactionServiceTest {
                 .name("Pobi")
                 .build();
         user.setId(12L);
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.findById(anyLong()))
                 .willReturn(Optional.of(user));
         Account account = Account.builder()
                 .accountUser(user)
@@ -229,8 +252,8 @@ class TransactionServiceTest {
     }
 
     @Test
-    @DisplayName("실패 트랜잭션 저장 성공")
-    void saveFailedUseTransaction() {
+    @DisplayName("실패 트랜잭션 묶음 저장 - 계좌는 한 번에 조회, 없는 계좌는 건너뜀")
+    void saveFailedTransactions() {
         //given
         AccountUser user=AccountUser.builder()
                 .name("Pobi")
@@ -241,33 +264,26 @@ class TransactionServiceTest {
                 .accountStatus(AccountStatus.IN_USE)
                 .balance(10000L)
                 .accountNumber("1000000012").build();
-        given(accountRepository.findByAccountNumber(anyString()))
-                .willReturn(Optional.of(account
-                ));
-        given(transactionRepository.save(any()))
-                .willReturn(Transaction.builder()
-                        .account(account)
-                        .transactionType(USE)
-                        .transactionResultType(S)
-                        .transactionId("transactionId")
-                        .transactedAt(LocalDateTime.now())
-                        .amount(1000L)
-                        .balanceSnapshot(9000L)
-                        .build());
+        LocalDateTime failedAt = LocalDateTime.now().minusSeconds(1);
+        given(accountRepository.findByAccountNumberIn(anyList()))
+                .willReturn(Collections.singletonList(account));
 
-        ArgumentCaptor<Transaction> captor=ArgumentCaptor.forClass(Transaction.class);
+        ArgumentCaptor<List<Transaction>> captor=ArgumentCaptor.forClass(List.class);
 
         //when
-        transactionService.saveFailedUseTransaction("1000000000",200L);
+        transactionService.saveFailedTransactions(Arrays.asList(
+                new FailedTransaction(USE, "1000000012", 200L, failedAt),
+                new FailedTransaction(CANCEL, "1000000012", 300L, failedAt),
+                new FailedTransaction(USE, "1000000099", 400L, failedAt)));
 
         //then
-        verify(transactionRepository,times(1)).save(captor.capture());
-        assertEquals(200L,captor.getValue().getAmount());
-        assertEquals(10000L,captor.getValue().getBalanceSnapshot());
-        assertEquals(F,captor.getValue().getTransactionResultType());
-
-
-
+        verify(accountRepository,times(1)).findByAccountNumberIn(anyList());
+        verify(transactionRepository,times(1)).saveAll(captor.capture());
+        assertEquals(2,captor.getValue().size());
+        assertEquals(CANCEL,captor.getValue().get(1).getTransactionType());
+        assertEquals(F,captor.getValue().get(1).getTransactionResultType());
+        assertEquals(failedAt,captor.getValue().get(0).getTransactedAt());
+        assertEquals(10000L,captor.getValue().get(0).getBalanceSnapshot());
     }
 
     @Test
@@ -554,8 +570,8 @@ class TransactionServiceTest {
                 .balanceSnapshot(9000L)
                 .build();
 
-        given(transactionRepository.findByTransactionId(anyString()))
-                .willReturn(Optional.of(transaction));
+        given(transactionRepository.findDtoByTransactionId(anyString()))
+                .willReturn(Optional.of(TransactionDto.fromEntity(transaction)));
         //when
         TransactionDto transactionDto = transactionService.queryTransaction("trxId");
 
@@ -567,13 +583,49 @@ class TransactionServiceTest {
 
     }
 
+    @Test
+    @DisplayName("캐시에 있는 거래는 DB 조회 없이 반환")
+    void queryTransaction_cached() {
+        //given
+        given(transactionDtoCache.get("transactionId"))
+                .willReturn(TransactionDto.builder()
+                        .accountNumber("1000000012")
+                        .transactionId("transactionId")
+                        .build());
+
+        //when
+        TransactionDto transactionDto = transactionService.queryTransaction("transactionId");
+
+        //then
+        assertEquals("1000000012",transactionDto.getAccountNumber());
+        verify(transactionRepository,never()).findDtoByTransactionId(anyString());
+    }
+
+    @Test
+    @DisplayName("bloom filter 에 없는 거래 - DB 조회 없이 거래 조회 실패")
+    void queryTransaction_UnknownTransactionId() {
+        //given
+        KnownIdFilter knownIdFilter = mock(KnownIdFilter.class);
+        given(knownIdFilter.mightContainTransactionId(anyString()))
+                .willReturn(false);
+        ReflectionTestUtils.setField(transactionService, "knownIdFilter", knownIdFilter);
+
+        //when
+        AccountException exception=assertThrows(AccountException.class,
+                ()->transactionService.queryTransaction("unknownId"));
+
+        //then
+        assertEquals(ErrorCode.TRANSACTION_NOT_FOUND,exception.getErrorCode());
+        verify(transactionRepository,never()).findDtoByTransactionId(anyString());
+    }
+
     @Test
     @DisplayName("원거래 없음 - 거래 조회 실패")
     void queryTransaction_TransactionNotFound() {
         //given
 
 
-        given(transactionRepository.findByTransactionId(anyString()))
+        given(transactionRepository.findDtoByTransactionId(anyString()))
                 .willReturn(Optional.empty());
 
 
@@ -589,6 +641,299 @@ class TransactionServiceTest {
 
     }
 
+    @Test
+    @DisplayName("atomic 모드 - 조건부 UPDATE 로 잔액 사용 성공")
+    void successUseBalance_atomic() {
+        //given
+        ReflectionTestUtils.setField(transactionService, "concurrencyMode", "atomic");
+        AccountUser user=AccountUser.builder()
+                .name("Pobi")
+                .build();
+        user.setId(12L);
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(9800L)
+                .accountNumber("1000000012").build();
+        given(accountRepository.debitBalance(anyLong(),anyString(),anyLong()))
+                .willReturn(1);
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+
+        ArgumentCaptor<Transaction> captor=ArgumentCaptor.forClass(Transaction.class);
+
+        //when
+        TransactionDto transactionDto=transactionService.useBalance(12L,"1000000012",USE_AMOUNT);
 
+        //then
+        verify(transactionRepository,times(1)).save(captor.capture());
+        verify(accountUserCache,never()).findById(anyLong());
+        assertEquals(USE_AMOUNT,captor.getValue().getAmount());
+        assertEquals(9800L,captor.getValue().getBalanceSnapshot());
+        assertEquals(S,transactionDto.getTransactionResultType());
+    }
 
-}
\ No newline at end of file
+    @Test
+    @DisplayName("atomic 모드 - 거래 금액이 잔액보다 큰 경우")
+    void exceedAmount_UseBalance_atomic() {
+        //given
+        ReflectionTestUtils.setField(transactionService, "concurrencyMode", "atomic");
+        AccountUser user=AccountUser.builder()
+                .name("Pobi")
+                .build();
+        user.setId(12L);
+        given(accountRepository.debitBalance(anyLong(),anyString(),anyLong()))
+                .willReturn(0);
+        given(accountUserCache.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(Account.builder()
+                        .accountUser(user)
+                        .accountStatus(AccountStatus.IN_USE)
+                        .balance(100L)
+                        .accountNumber("1000000012").build()));
+
+        //when
+        AccountException exception=assertThrows(AccountException.class,
+                ()->transactionService.useBalance(12L,"1000000012",1000L));
+
+        //then
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE,exception.getErrorCode());
+        verify(transactionRepository,times(0)).save(any());
+    }
+
+    @Test
+    @DisplayName("저널 모드 - DB 반영 전 저널 잔액으로 검증하고 저널에만 남김")
+    void useBalance_journaled(@TempDir Path journalDir) {
+        //given
+        TransactionJournal journal = new TransactionJournal(journalDir.toString(), 4096);
+        journal.recover(0);
+        journal.debit("1000000012", 9500L, () -> 10000L, "previous");
+        ReflectionTestUtils.setField(transactionService, "transactionJournal", journal);
+        given(transactionIdGenerator.generate()).willReturn("transactionId");
+        AccountUser user=AccountUser.builder()
+                .name("Pobi")
+                .build();
+        user.setId(12L);
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(10000L)
+                .accountNumber("1000000012").build();
+        given(accountUserCache.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+
+        //when
+        AccountException exception=assertThrows(AccountException.class,
+                ()->transactionService.useBalance(12L,"1000000012",1000L));
+        TransactionDto transactionDto=transactionService.useBalance(12L,"1000000012",USE_AMOUNT);
+
+        //then
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE,exception.getErrorCode());
+        assertEquals(300L,transactionDto.getBalanceSnapshot());
+        assertEquals(10000L,account.getBalance());
+        assertEquals("1000000012",
+                transactionService.queryTransaction("transactionId").getAccountNumber());
+        verify(transactionRepository,never()).save(any());
+    }
+
+    @Test
+    @DisplayName("잔액 엔진 모드 - 계좌 조회 없이 차감하고 거래 내역만 저장")
+    void useBalance_inMemory() {
+        //given
+        BalanceEngine engine = mock(BalanceEngine.class);
+        ReflectionTestUtils.setField(transactionService, "balanceEngine", engine);
+        LocalDateTime appliedAt = LocalDateTime.now();
+        given(engine.debit(12L, "1000000012", USE_AMOUNT))
+                .willReturn(new BalanceEngine.Change(7L, 9800L, appliedAt));
+        given(accountRepository.getReferenceById(7L))
+                .willReturn(Account.builder().accountNumber("1000000012").build());
+        given(transactionIdGenerator.generate()).willReturn("transactionId");
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+
+        ArgumentCaptor<Transaction> captor=ArgumentCaptor.forClass(Transaction.class);
+
+        //when
+        TransactionDto transactionDto=transactionService.useBalance(12L,"1000000012",USE_AMOUNT);
+
+        //then
+        verify(transactionRepository,times(1)).save(captor.capture());
+        verify(accountRepository,never()).findByAccountNumber(anyString());
+        verify(accountUserCache,never()).findById(anyLong());
+        assertEquals(9800L,captor.getValue().getBalanceSnapshot());
+        assertEquals(appliedAt,captor.getValue().getTransactedAt());
+        assertEquals("1000000012",transactionDto.getAccountNumber());
+    }
+
+    @Test
+    @DisplayName("이체 batch - 계좌를 한 번에 조회하고 출금, 입금 거래를 함께 저장")
+    void transfer() {
+        //given
+        AccountUser user=AccountUser.builder()
+                .name("Pobi")
+                .build();
+        user.setId(12L);
+        Account from = Account.builder()
+                .accountUser(user)
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(10000L)
+                .accountNumber("1000000012").build();
+        Account to = Account.builder()
+                .accountUser(user)
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(0L)
+                .accountNumber("1000000013").build();
+        given(accountUserRepository.findAllById(anyList()))
+                .willReturn(Collections.singletonList(user));
+        given(accountRepository.findByAccountNumberIn(anyList()))
+                .willReturn(Arrays.asList(from, to));
+        given(transactionIdGenerator.generate()).willReturn("withdraw", "deposit", "withdraw2", "deposit2");
+
+        ArgumentCaptor<List<Transaction>> captor=ArgumentCaptor.forClass(List.class);
+
+        //when
+        List<TransferDto> transferDtos=transactionService.transfer(Arrays.asList(
+                new Transfer.Request(12L,"1000000012","1000000013",3000L),
+                new Transfer.Request(12L,"1000000013","1000000012",1000L)));
+
+        //then
+        verify(accountRepository,times(1)).findByAccountNumberIn(anyList());
+        verify(transactionRepository,times(1)).saveAll(captor.capture());
+        assertEquals(4,captor.getValue().size());
+        assertEquals(TransactionType.TRANSFER_OUT,captor.getValue().get(0).getTransactionType());
+        assertEquals(7000L,captor.getValue().get(0).getBalanceSnapshot());
+        assertEquals(3000L,captor.getValue().get(1).getBalanceSnapshot());
+        assertEquals(8000L,from.getBalance());
+        assertEquals(2000L,to.getBalance());
+        assertEquals("deposit",transferDtos.get(0).getDeposit().getTransactionId());
+    }
+
+    @Test
+    @DisplayName("이체 실패 - 잔액 부족이면 아무 거래도 저장하지 않고 앞선 이체의 잔액도 바꾸지 않음")
+    void transfer_AmountExceedBalance() {
+        //given
+        AccountUser user=AccountUser.builder()
+                .name("Pobi")
+                .build();
+        user.setId(12L);
+        Account from = Account.builder()
+                .accountUser(user)
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(100L)
+                .accountNumber("1000000012").build();
+        Account to = Account.builder()
+                .accountUser(user)
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(0L)
+                .accountNumber("1000000013").build();
+        given(accountUserRepository.findAllById(anyList()))
+                .willReturn(Collections.singletonList(user));
+        given(accountRepository.findByAccountNumberIn(anyList()))
+                .willReturn(Arrays.asList(from, to));
+
+        //when
+        AccountException exception=assertThrows(AccountException.class,
+                ()->transactionService.transfer(Arrays.asList(
+                        new Transfer.Request(12L,"1000000012","1000000013",60L),
+                        new Transfer.Request(12L,"1000000012","1000000013",60L))));
+
+        //then
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE,exception.getErrorCode());
+        assertEquals(100L,from.getBalance());
+        assertEquals(0L,to.getBalance());
+        verify(transactionRepository,never()).saveAll(anyList());
+    }
+
+    @Test
+    @DisplayName("atomic 모드 이체 - 계좌번호 순서로 row lock 을 잡고 조회")
+    void transfer_atomic() {
+        //given
+        ReflectionTestUtils.setField(transactionService, "concurrencyMode", "atomic");
+        AccountUser user=AccountUser.builder()
+                .name("Pobi")
+                .build();
+        user.setId(12L);
+        Account from = Account.builder()
+                .accountUser(user)
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(10000L)
+                .accountNumber("1000000013").build();
+        Account to = Account.builder()
+                .accountUser(user)
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(0L)
+                .accountNumber("1000000012").build();
+        given(accountUserRepository.findAllById(anyList()))
+                .willReturn(Collections.singletonList(user));
+        given(accountRepository.findByAccountNumberForUpdate("1000000012"))
+                .willReturn(Optional.of(to));
+        given(accountRepository.findByAccountNumberForUpdate("1000000013"))
+                .willReturn(Optional.of(from));
+        given(transactionIdGenerator.generate()).willReturn("withdraw", "deposit");
+
+        //when
+        transactionService.transfer(Collections.singletonList(
+                new Transfer.Request(12L,"1000000013","1000000012",3000L)));
+
+        //then
+        InOrder inOrder=inOrder(accountRepository);
+        inOrder.verify(accountRepository).findByAccountNumberForUpdate("1000000012");
+        inOrder.verify(accountRepository).findByAccountNumberForUpdate("1000000013");
+        verify(accountRepository,never()).findByAccountNumberIn(anyList());
+        assertEquals(7000L,from.getBalance());
+        assertEquals(3000L,to.getBalance());
+    }
+
+    @Test
+    @DisplayName("거래 내역 - size 보다 많으면 마지막 거래로 cursor 를 만들고 다음 페이지에서 이어서 조회")
+    void getTransactionHistory() {
+        //given
+        Account account = Account.builder()
+                .accountNumber("1000000012").build();
+        account.setId(7L);
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        LocalDateTime transactedAt = LocalDateTime.of(2026, 10, 1, 12, 0, 0, 123_000_000);
+        given(transactionRepository.findHistory(eq(7L), isNull(), isNull(), any()))
+                .willReturn(Arrays.asList(
+                        new TransactionHistory.Item(3L, "t3", USE, S, 100L, 900L, transactedAt),
+                        new TransactionHistory.Item(2L, "t2", USE, S, 100L, 1000L, transactedAt),
+                        new TransactionHistory.Item(1L, "t1", USE, S, 100L, 1100L, transactedAt)));
+        given(transactionRepository.findHistoryAfter(eq(7L), isNull(), isNull(),
+                eq(transactedAt), eq(2L), any()))
+                .willReturn(Collections.singletonList(
+                        new TransactionHistory.Item(1L, "t1", USE, S, 100L, 1100L, transactedAt)));
+
+        //when
+        TransactionHistory first = transactionService.getTransactionHistory(
+                "1000000012", null, null, null, 2);
+        TransactionHistory second = transactionService.getTransactionHistory(
+                "1000000012", null, null, first.getNextCursor(), 2);
+
+        //then
+        assertEquals(2, first.getTransactions().size());
+        assertEquals("t2", first.getTransactions().get(1).getTransactionId());
+        assertEquals(1, second.getTransactions().size());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    @DisplayName("거래 내역 - 잘못된 cursor")
+    void getTransactionHistory_InvalidCursor() {
+        //given
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(Account.builder().accountNumber("1000000012").build()));
+
+        //when
+        AccountException exception=assertThrows(AccountException.class,
+                ()->transactionService.getTransactionHistory("1000000012", null, null, "not-a-cursor", 20));
+
+        //then
+        assertEquals(ErrorCode.INVALID_REQUEST,exception.getErrorCode());
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.type.AccountStatus;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserAccountDirectoryTest {
+
+    @Test
+    void addAndUpdateLoadedUser() {
+        //given
+        UserAccountDirectory directory = new UserAccountDirectory(10);
+        directory.load(1L, List.of(Account.builder()
+                .accountNumber("1000000000")
+                .accountStatus(AccountStatus.IN_USE)
+                .build()));
+
+        //when
+        directory.addAccount(1L, "1000000001", AccountStatus.IN_USE);
+        directory.updateStatus(1L, "1000000000", AccountStatus.UNREGISTERED);
+
+        //then
+        UserAccountDirectory.Entry entry = directory.get(1L);
+        assertEquals(2, entry.size());
+        assertEquals(AccountStatus.UNREGISTERED, entry.getStatus("1000000000"));
+        assertEquals(AccountStatus.IN_USE, entry.getStatus("1000000001"));
+    }
+
+    @Test
+    void ignoreChangeForNotLoadedUser() {
+        //given
+        UserAccountDirectory directory = new UserAccountDirectory(10);
+
+        //when
+        directory.addAccount(1L, "1000000001", AccountStatus.IN_USE);
+
+        //then
+        assertNull(directory.get(1L));
+    }
+
+    @Test
+    void skipLoadReadBeforeConcurrentChange() {
+        //given
+        UserAccountDirectory directory = new UserAccountDirectory(10);
+        long version = directory.version(1L);
+
+        //when
+        directory.addAccount(1L, "1000000001", AccountStatus.IN_USE); //목록을 읽은 뒤 커밋된 계좌 생성
+        directory.load(1L, List.of(), version);
+
+        //then
+        assertNull(directory.get(1L));
+        directory.load(1L, List.of(), directory.version(1L));
+        assertNotNull(directory.get(1L));
+    }
+
+    @Test
+    void evictLeastRecentlyUsedUser() {
+        //given
+        UserAccountDirectory directory = new UserAccountDirectory(2);
+        directory.load(1L, List.of());
+        directory.load(2L, List.of());
+        directory.get(1L);
+
+        //when
+        directory.load(3L, List.of());
+
+        //then
+        assertNotNull(directory.get(1L));
+        assertNull(directory.get(2L));
+        assertNotNull(directory.get(3L));
+    }
+}